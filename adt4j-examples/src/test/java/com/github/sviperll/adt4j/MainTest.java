@@ -29,17 +29,55 @@
  */
 package com.github.sviperll.adt4j;
 
+import com.github.sviperll.adt4j.examples.Account;
+import com.github.sviperll.adt4j.examples.Arithmetic;
+import com.github.sviperll.adt4j.examples.Blob;
+import com.github.sviperll.adt4j.examples.Cell;
+import com.github.sviperll.adt4j.examples.Chain;
+import com.github.sviperll.adt4j.examples.Color;
 import com.github.sviperll.adt4j.examples.ComparableList;
+import com.github.sviperll.adt4j.examples.Computation;
+import com.github.sviperll.adt4j.examples.Coordinate;
+import com.github.sviperll.adt4j.examples.Formula;
 import com.github.sviperll.adt4j.examples.GroupName;
+import com.github.sviperll.adt4j.examples.LongSequence;
+import com.github.sviperll.adt4j.examples.Measurement;
+import com.github.sviperll.adt4j.examples.Optional;
+import com.github.sviperll.adt4j.examples.Route;
+import com.github.sviperll.adt4j.examples.ShardKey;
+import com.github.sviperll.adt4j.examples.Stream;
+import com.github.sviperll.adt4j.examples.Tagged;
+import com.github.sviperll.adt4j.examples.Term;
 import com.github.sviperll.adt4j.examples.User;
 import com.github.sviperll.adt4j.examples.UserKey;
+import com.github.sviperll.adt4j.examples.UserStatus;
 import com.github.sviperll.adt4j.examples.UserVisitor;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.lang.model.SourceVersion;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import static org.junit.Assert.*;
 
 /**
@@ -47,6 +85,8 @@ import static org.junit.Assert.*;
  * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
  */
 public class MainTest {
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
 
     public MainTest() {
     }
@@ -144,4 +184,552 @@ public class MainTest {
         assertTrue("list1.compareTo(list2) < 0", list1.compareTo(list2) < 0);
         assertTrue("list2.compareTo(list1) > 0", list2.compareTo(list1) > 0);
     }
+
+    @Test
+    public void testInterning() {
+        long hitCount = Term.internTable().hitCount();
+        Term term1 = Term.application(Term.variable("f"), Term.application(Term.variable("g"), Term.variable("x")));
+        Term term2 = Term.application(Term.variable("f"), Term.application(Term.variable("g"), Term.variable("x")));
+        assertSame(term1, term2);
+        assertSame(term1.function(), term2.function());
+        assertTrue("Term.internTable().hitCount() > hitCount", Term.internTable().hitCount() > hitCount);
+        assertNotSame(term1, Term.application(Term.variable("f"), Term.variable("x")));
+    }
+
+    @Test
+    public void testWeakInternTable() {
+        InternTable<String> table = InternTable.weak();
+        String value1 = new String("value");
+        String value2 = new String("value");
+        assertSame(value1, table.intern(value1));
+        assertSame(value1, table.intern(value2));
+        assertSame(value1, table.intern(value1));
+        assertEquals(1, table.missCount());
+        assertEquals(2, table.hitCount());
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    public void testInterningSerialization() throws IOException, ClassNotFoundException {
+        Term term1 = Term.application(Term.variable("f"), Term.application(Term.variable("g"), Term.variable("x")));
+        ByteArrayOutputStream byteArray = new ByteArrayOutputStream();
+        ObjectOutputStream outputStream = new ObjectOutputStream(byteArray);
+        outputStream.writeObject(term1);
+        ObjectInputStream inputStream = new ObjectInputStream(new ByteArrayInputStream(byteArray.toByteArray()));
+        Term term2 = (Term)inputStream.readObject();
+        assertSame(term1, term2);
+        assertSame(term1.argument(), term2.argument());
+    }
+
+    @Test
+    public void testValueCache() {
+        assertSame(Color.gray(1), Color.gray(1));
+        assertSame(Color.gray(255), Color.gray(255));
+        assertNotSame(Color.gray(256), Color.gray(256));
+        assertEquals(Color.gray(256), Color.gray(256));
+        assertNotSame(Color.gray(-1), Color.gray(-1));
+        assertNotSame(Color.rgb(1, 1, 1), Color.rgb(1, 1, 1));
+    }
+
+    @Test
+    public void testKind() {
+        ComparableList<String> empty = ComparableList.<String>empty();
+        ComparableList<String> list = ComparableList.prepend("a", empty);
+        assertEquals(ComparableList.Kind.EMPTY, empty.kind());
+        assertEquals(ComparableList.Kind.PREPEND, list.kind());
+        assertEquals(empty.kind().ordinal(), empty.tag());
+        assertEquals(list.kind().ordinal(), list.tag());
+    }
+
+    @Test
+    public void testEnumLike() throws IOException, ClassNotFoundException {
+        assertSame(UserStatus.active(), UserStatus.active());
+        ByteArrayOutputStream byteArray = new ByteArrayOutputStream();
+        ObjectOutputStream outputStream = new ObjectOutputStream(byteArray);
+        outputStream.writeObject(UserStatus.active());
+        ObjectInputStream inputStream = new ObjectInputStream(new ByteArrayInputStream(byteArray.toByteArray()));
+        UserStatus status = (UserStatus)inputStream.readObject();
+        assertSame(UserStatus.active(), status);
+        assertEquals(UserStatus.active().hashCode(), status.hashCode());
+        assertFalse("UserStatus.active().equals(UserStatus.blocked())", UserStatus.active().equals(UserStatus.blocked()));
+        assertTrue(UserStatus.active().compareTo(UserStatus.deleted()) < 0);
+        assertEquals(0, UserStatus.blocked().compareTo(UserStatus.blocked()));
+        EnumSet<UserStatus.Kind> kinds = EnumSet.of(UserStatus.blocked().kind(), UserStatus.deleted().kind());
+        assertFalse(kinds.contains(UserStatus.active().kind()));
+        assertTrue(kinds.contains(UserStatus.deleted().kind()));
+    }
+
+    @Test
+    public void testOptionalShaped() {
+        Optional<String> present1 = Optional.present("a");
+        Optional<String> present2 = Optional.present("a");
+        assertEquals(present1, present2);
+        assertEquals(present1.hashCode(), present2.hashCode());
+        assertEquals("a", present1.getValue());
+        assertFalse("present1.equals(Optional.present(\"b\"))", present1.equals(Optional.present("b")));
+        assertFalse("present1.equals(Optional.missing())", present1.equals(Optional.<String>missing()));
+        assertFalse("Optional.missing().equals(present1)", Optional.<String>missing().equals(present1));
+        assertEquals(Optional.<String>missing(), Optional.<String>missing());
+    }
+
+    @Test
+    public void testPrimitiveVisitor() {
+        Arithmetic expression = Arithmetic.add(Arithmetic.lit(1), Arithmetic.mul(Arithmetic.lit(2), Arithmetic.lit(3)));
+        Arithmetic.IntVisitor evaluator = new Arithmetic.IntVisitor() {
+            @Override
+            public int add(Arithmetic left, Arithmetic right) {
+                return left.acceptInt(this) + right.acceptInt(this);
+            }
+
+            @Override
+            public int mul(Arithmetic left, Arithmetic right) {
+                return left.acceptInt(this) * right.acceptInt(this);
+            }
+
+            @Override
+            public int lit(int value) {
+                return value;
+            }
+        };
+        assertEquals(7, expression.acceptInt(evaluator));
+    }
+
+    private static final Formula.ContextVisitor<StringBuilder, StringBuilder> PRINTER = new Formula.ContextVisitor<StringBuilder, StringBuilder>() {
+        @Override
+        public StringBuilder variable(StringBuilder context, String name) {
+            return context.append(name);
+        }
+
+        @Override
+        public StringBuilder not(StringBuilder context, Formula formula) {
+            return formula.accept(this, context.append('!'));
+        }
+
+        @Override
+        public StringBuilder and(StringBuilder context, Formula left, Formula right) {
+            context.append('(');
+            left.accept(this, context).append(" & ");
+            return right.accept(this, context).append(')');
+        }
+    };
+
+    @Test
+    public void testContextVisitor() {
+        Formula formula = Formula.and(Formula.variable("a"), Formula.not(Formula.variable("b")));
+        assertEquals("(a & !b)", formula.accept(PRINTER, new StringBuilder()).toString());
+    }
+
+    @Test
+    public void testPackedFields() {
+        Cell cell1 = Cell.cell(true, Byte.MIN_VALUE, Short.MIN_VALUE, Character.MAX_VALUE, false, (byte)-1, (short)-1, Character.MIN_VALUE);
+        assertTrue("cell1.bold()", cell1.bold());
+        assertEquals(Byte.MIN_VALUE, cell1.foreground());
+        assertEquals(Short.MIN_VALUE, cell1.row());
+        assertEquals(Character.MAX_VALUE, cell1.symbol());
+        assertFalse("cell1.underline()", cell1.underline());
+        assertEquals((byte)-1, cell1.background());
+        assertEquals((short)-1, cell1.column());
+        assertEquals(Character.MIN_VALUE, cell1.mark());
+
+        Cell cell2 = Cell.cell(false, Byte.MAX_VALUE, Short.MAX_VALUE, Character.MIN_VALUE, true, (byte)0, Short.MAX_VALUE, Character.MAX_VALUE);
+        assertFalse("cell1.equals(cell2)", cell1.equals(cell2));
+        cell2 = cell2.withBold(true).withForeground(Byte.MIN_VALUE).withRow(Short.MIN_VALUE).withSymbol(Character.MAX_VALUE);
+        cell2 = cell2.withUnderline(false).withBackground((byte)-1).withColumn((short)-1).withMark(Character.MIN_VALUE);
+        assertEquals(cell1, cell2);
+        assertEquals(cell1.hashCode(), cell2.hashCode());
+
+        Cell cell3 = cell1.withColumn((short)-2);
+        assertFalse("cell1.equals(cell3)", cell1.equals(cell3));
+        assertEquals((short)-2, cell3.column());
+        assertEquals((byte)-1, cell3.background());
+        assertEquals(Character.MIN_VALUE, cell3.mark());
+        assertEquals(Character.MAX_VALUE, cell3.symbol());
+        assertEquals(cell1, cell3.withColumn((short)-1));
+    }
+
+    @Test
+    public void testSpecialization() {
+        LongSequence sequence1 = LongSequence.cons(1L, LongSequence.cons(Long.MAX_VALUE, LongSequence.nil()));
+        LongSequence sequence2 = LongSequence.cons(1L, LongSequence.cons(Long.MAX_VALUE, LongSequence.nil()));
+        assertEquals(sequence1, sequence2);
+        assertEquals(sequence1.hashCode(), sequence2.hashCode());
+        assertEquals(Long.MAX_VALUE, sequence1.tail().head());
+        assertEquals(LongSequence.cons(2L, sequence1.tail()), sequence1.withHead(2L));
+        assertFalse("sequence1.equals(sequence1.tail())", sequence1.equals(sequence1.tail()));
+        assertTrue("LongSequence.nil().isEmpty()", LongSequence.nil().isEmpty());
+    }
+
+    @Test
+    public void testCached() {
+        Chain<String> chain = Chain.link("a", Chain.link("b", Chain.<String>end()));
+        assertEquals(2, chain.length());
+        assertEquals(2, chain.length());
+        assertEquals(0, Chain.<String>end().length());
+        assertEquals(3, Chain.link("c", chain).length());
+        assertEquals(2, chain.withHead("c").length());
+    }
+
+    @Test
+    public void testCachedComputationCount() {
+        AtomicInteger uncachedCount = new AtomicInteger();
+        AtomicInteger simpleCount = new AtomicInteger();
+        AtomicInteger precomputedCount = new AtomicInteger();
+        Computation computation = Computation.of(uncachedCount, simpleCount, precomputedCount);
+        assertEquals(1, precomputedCount.get());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(1, computation.precomputed());
+            assertEquals(1, computation.simple());
+            assertEquals(i + 1, computation.uncached());
+        }
+        assertEquals(1, precomputedCount.get());
+        assertEquals(1, simpleCount.get());
+        assertEquals(3, uncachedCount.get());
+    }
+
+    @Test
+    public void testTooLargeValueCache() throws IOException {
+        File directory = temporaryFolder.newFolder();
+        ByteArrayOutputStream diagnostics = new ByteArrayOutputStream();
+        int status = compileVisitor(directory, "1.8", "Key",
+                                    "@GenerateValueClassForVisitor public interface KeyVisitor<R> {"
+                                    + " @com.github.sviperll.adt4j.ValueCache(low = Integer.MIN_VALUE / 2, high = Integer.MAX_VALUE / 2) R key(int value); }",
+                                    diagnostics);
+        String errors = diagnostics.toString();
+        assertTrue(errors, status != 0);
+        assertTrue(errors, errors.contains("Unable to generate value cache for key case: range is too large"));
+    }
+
+    @Test
+    public void testShallowEqualityOfPrimitiveArray() throws IOException {
+        File directory = temporaryFolder.newFolder();
+        ByteArrayOutputStream diagnostics = new ByteArrayOutputStream();
+        int status = compileVisitor(directory, "1.8", "Blob",
+                                    "@GenerateValueClassForVisitor public interface BlobVisitor<R> {"
+                                    + " R blob(@com.github.sviperll.adt4j.Equality(com.github.sviperll.adt4j.FieldEquality.SHALLOW) int[] data); }",
+                                    diagnostics);
+        String errors = diagnostics.toString();
+        assertTrue(errors, status != 0);
+        assertTrue(errors, errors.contains("Unable to use SHALLOW equality for data parameter in blob method: array of objects expected"));
+    }
+
+    @Test
+    public void testExcludedFieldOfInternedClass() throws IOException {
+        File directory = temporaryFolder.newFolder();
+        ByteArrayOutputStream diagnostics = new ByteArrayOutputStream();
+        int status = compileVisitor(directory, "1.8", "Blob",
+                                    "@GenerateValueClassForVisitor(interning = com.github.sviperll.adt4j.Interning.WEAK) public interface BlobVisitor<R> {"
+                                    + " R blob(String id, @com.github.sviperll.adt4j.Equality(com.github.sviperll.adt4j.FieldEquality.EXCLUDED) String payload); }",
+                                    diagnostics);
+        String errors = diagnostics.toString();
+        assertTrue(errors, status != 0);
+        assertTrue(errors, errors.contains("Unable to use EXCLUDED equality for payload parameter in blob method: values are interned"));
+    }
+
+    @Test
+    public void testEnumLikeHashCodeCaching() throws IOException {
+        File directory = temporaryFolder.newFolder();
+        ByteArrayOutputStream diagnostics = new ByteArrayOutputStream();
+        int status = compileVisitor(directory, "1.8", "Status",
+                                    "@GenerateValueClassForVisitor(hashCodeCaching = com.github.sviperll.adt4j.Caching.PRECOMPUTE)"
+                                    + " public interface StatusVisitor<R> { R active(); R blocked(); }",
+                                    diagnostics);
+        String errors = diagnostics.toString();
+        assertTrue(errors, status != 0);
+        assertTrue(errors, errors.contains("Unable to cache hash code with PRECOMPUTE caching"));
+    }
+
+    @Test
+    public void testSourceVersionDependentCode() throws IOException {
+        String visitorDeclaration = "@GenerateValueClassForVisitor(isComparable = true) public interface PointVisitor<R> { R point(long x, int[] ys); }";
+        String source8 = generateSource("1.8", "Point", visitorDeclaration);
+        assertTrue("source8.contains(\"Long.hashCode(\")", source8.contains("Long.hashCode("));
+        assertFalse("source8.contains(\"Arrays.compare(\")", source8.contains("Arrays.compare("));
+        // Release 9 can only be tested when tests are run on Java 9 or later
+        if (SourceVersion.latestSupported().ordinal() >= 9) {
+            String source9 = generateSource("9", "Point", visitorDeclaration);
+            assertTrue("source9.contains(\"Arrays.compare(\")", source9.contains("Arrays.compare("));
+        }
+    }
+
+    private String generateSource(String sourceVersion, String className, String visitorDeclaration) throws IOException {
+        File directory = temporaryFolder.newFolder();
+        ByteArrayOutputStream diagnostics = new ByteArrayOutputStream();
+        int status = compileVisitor(directory, sourceVersion, className, visitorDeclaration, diagnostics);
+        assertEquals(diagnostics.toString(), 0, status);
+        byte[] bytes = Files.readAllBytes(new File(new File(new File(directory, "generated"), "processortest"), className + ".java").toPath());
+        return new String(bytes, Charset.defaultCharset());
+    }
+
+    private static int compileVisitor(File directory, String sourceVersion, String className, String visitorDeclaration, OutputStream diagnostics) throws IOException {
+        File generatedDirectory = new File(directory, "generated");
+        File classesDirectory = new File(directory, "classes");
+        if (!generatedDirectory.isDirectory() && !generatedDirectory.mkdirs() || !classesDirectory.isDirectory() && !classesDirectory.mkdirs())
+            throw new IOException("Unable to create directory " + directory);
+        File visitorFile = new File(directory, className + "Visitor.java");
+        Writer writer = new OutputStreamWriter(new FileOutputStream(visitorFile), "UTF-8");
+        try {
+            writer.write("package processortest;\nimport com.github.sviperll.adt4j.GenerateValueClassForVisitor;\n" + visitorDeclaration + "\n");
+        } finally {
+            writer.close();
+        }
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        return compiler.run(null, null, diagnostics,
+                            "-source", sourceVersion, "-target", sourceVersion, "-encoding", "UTF-8", "-Xlint:-options",
+                            "-classpath", System.getProperty("java.class.path"),
+                            "-processor", GenerateValueClassForVisitorProcessor.class.getName(),
+                            "-s", generatedDirectory.getPath(), "-d", classesDirectory.getPath(),
+                            visitorFile.getPath());
+    }
+
+    @Test
+    public void testAtomicHashCodeCaching() {
+        Coordinate coordinate1 = Coordinate.cartesian(1L, 2L);
+        Coordinate coordinate2 = Coordinate.cartesian(2L, 1L);
+        Coordinate coordinate3 = Coordinate.cartesian(1L, 2L);
+        assertEquals(coordinate1.hashCode(), coordinate1.hashCode());
+        assertTrue("coordinate1.hashCode() != coordinate2.hashCode()", coordinate1.hashCode() != coordinate2.hashCode());
+        assertFalse("coordinate1.equals(coordinate2)", coordinate1.equals(coordinate2));
+        assertEquals(coordinate1.hashCode(), coordinate3.hashCode());
+        assertEquals(coordinate1, coordinate3);
+        assertFalse("coordinate1.equals(Coordinate.polar(1.0, 2.0))", coordinate1.equals(Coordinate.polar(1.0, 2.0)));
+    }
+
+    @Test
+    public void testLazyStream() {
+        AtomicInteger evaluations = new AtomicInteger();
+        Stream<Integer> naturals = naturalsFrom(0, evaluations);
+        assertEquals(0, evaluations.get());
+        Stream<Integer> stream = naturals;
+        for (int i = 0; i < 5; i++)
+            stream = stream.tail();
+        assertEquals(5, (int)stream.head());
+        assertEquals(5, evaluations.get());
+        assertSame(stream, naturals.tail().tail().tail().tail().tail());
+        assertEquals(5, evaluations.get());
+        assertEquals(Stream.cons(1, Stream.<Integer>nil()), Stream.lazyCons(1, new Thunk<Stream<Integer>>() {
+            @Override
+            public Stream<Integer> get() {
+                return Stream.nil();
+            }
+        }));
+    }
+
+    @Test
+    public void testLazyFieldNullValue() {
+        Stream<Integer> stream = Stream.lazyCons(1, new Thunk<Stream<Integer>>() {
+            @Override
+            public Stream<Integer> get() {
+                return null;
+            }
+        });
+        try {
+            stream.tail();
+            fail("NullPointerException expected");
+        } catch (NullPointerException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().contains("'tail'"));
+        }
+    }
+
+    @Test
+    public void testLazyFieldReentrance() {
+        final AtomicReference<Stream<Integer>> reference = new AtomicReference<>();
+        reference.set(Stream.lazyCons(1, new Thunk<Stream<Integer>>() {
+            @Override
+            public Stream<Integer> get() {
+                return reference.get().tail();
+            }
+        }));
+        try {
+            reference.get().tail();
+            fail("IllegalStateException expected");
+        } catch (IllegalStateException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().contains("'tail'"));
+        }
+    }
+
+    private static Stream<Integer> naturalsFrom(final int start, final AtomicInteger evaluations) {
+        return Stream.lazyCons(start, new Thunk<Stream<Integer>>() {
+            @Override
+            public Stream<Integer> get() {
+                evaluations.incrementAndGet();
+                return naturalsFrom(start + 1, evaluations);
+            }
+        });
+    }
+
+    @Test
+    public void testCopyArrays() {
+        String[] bs = {"a", "b"};
+        Route route = Route.of(1, bs);
+        int hashCode = route.hashCode();
+        bs[0] = "c";
+        assertEquals("a", route.hosts()[0]);
+        route.hosts()[0] = "c";
+        assertEquals("a", route.hosts()[0]);
+        assertEquals(hashCode, route.hashCode());
+        assertEquals(Route.of(1, "a", "b"), route);
+        assertEquals(Route.of(1, "c", "b"), route.hosts(bs));
+    }
+
+    @Test
+    public void testInternedFields() {
+        String name1 = new String("Victor");
+        String name2 = new String("Victor");
+        ComparableList<String> list1 = ComparableList.prepend("a", ComparableList.<String>empty());
+        ComparableList<String> list2 = ComparableList.prepend("a", ComparableList.<String>empty());
+        assertNotSame(list1, list2);
+        Account<String> account1 = Account.<String>account(UserKey.valueOf(1), list1, name1);
+        Account<String> account2 = Account.<String>account(UserKey.valueOf(2), list2, name2);
+        assertSame(account1.name(), account2.name());
+        assertSame(account1.name(), account2.withName(new String("Victor")).name());
+        assertSame(account1.roles(), account2.roles());
+    }
+
+    @Test
+    public void testFieldEquality() {
+        Object handle = new Object();
+        String[] tags = {"a", "b"};
+        Blob blob1 = Blob.blob("id", new byte[] {1, 2, 3}, handle, tags);
+        Blob blob2 = Blob.blob("id", new byte[] {4, 5}, handle, tags.clone());
+        assertEquals(blob1, blob2);
+        assertEquals(blob1.hashCode(), blob2.hashCode());
+        assertFalse("blob1.equals(Blob.blob(\"id\", blob1.payload(), new Object(), tags))", blob1.equals(Blob.blob("id", blob1.payload(), new Object(), tags)));
+        assertFalse("blob1.equals(Blob.blob(\"id\", blob1.payload(), handle, new String[] {new String(\"a\"), \"b\"}))",
+                    blob1.equals(Blob.blob("id", blob1.payload(), handle, new String[] {new String("a"), "b"})));
+        assertEquals(Blob.blob("id", blob1.payload(), handle, null), Blob.blob("id", blob1.payload(), handle, null));
+        assertFalse("Blob.blob(\"id\", blob1.payload(), handle, new String[0]).equals(Blob.blob(\"id\", blob1.payload(), handle, null))",
+                    Blob.blob("id", blob1.payload(), handle, new String[0]).equals(Blob.blob("id", blob1.payload(), handle, null)));
+        assertFalse("Blob.blob(\"id\", blob1.payload(), handle, null).equals(Blob.blob(\"id\", blob1.payload(), handle, new String[0]))",
+                    Blob.blob("id", blob1.payload(), handle, null).equals(Blob.blob("id", blob1.payload(), handle, new String[0])));
+    }
+
+    @Test
+    public void testFloatEquality() {
+        Measurement nan1 = Measurement.measurement(Double.NaN, new float[] {Float.NaN});
+        Measurement nan2 = Measurement.measurement(Double.NaN, new float[] {Float.NaN});
+        assertEquals(nan1, nan2);
+        assertEquals(nan1.hashCode(), nan2.hashCode());
+        assertEquals(0, nan1.compareTo(nan2));
+        Measurement zero = Measurement.measurement(0.0, new float[] {0.0f});
+        Measurement negativeZero = Measurement.measurement(-0.0, new float[] {0.0f});
+        assertFalse("zero.equals(negativeZero)", zero.equals(negativeZero));
+        assertTrue("negativeZero.compareTo(zero) < 0", negativeZero.compareTo(zero) < 0);
+        Measurement one = Measurement.measurement(1.0, new float[] {0.0f});
+        Measurement closeToOne = Measurement.measurement(1.0 + 1e-15, new float[] {0.0f});
+        assertFalse("one.equals(closeToOne)", one.equals(closeToOne));
+        assertTrue("one.compareTo(closeToOne) < 0", one.compareTo(closeToOne) < 0);
+    }
+
+    @Test
+    public void testEqualsFieldOrder() {
+        final AtomicInteger equalsCalls = new AtomicInteger(0);
+        Object value1 = new Object() {
+            @Override
+            public boolean equals(Object that) {
+                equalsCalls.incrementAndGet();
+                return super.equals(that);
+            }
+
+            @Override
+            public int hashCode() {
+                return 0;
+            }
+        };
+        Tagged<Object> tagged1 = Tagged.tagged(value1, 1);
+        Tagged<Object> tagged2 = Tagged.tagged(value1, 2);
+        assertFalse("tagged1.equals(tagged2)", tagged1.equals(tagged2));
+        assertEquals(0, equalsCalls.get());
+        assertEquals(tagged1, Tagged.tagged(value1, 1));
+        assertEquals(1, equalsCalls.get());
+    }
+
+    @Test
+    public void testHashAlgorithm() {
+        Set<Integer> hashCodes = new HashSet<>();
+        Set<Integer> highBytes = new HashSet<>();
+        for (int i = 0; i < 1024; i++) {
+            int hashCode = ShardKey.of(i).hashCode();
+            assertEquals(hashCode, ShardKey.of(i).hashCode());
+            hashCodes.add(hashCode);
+            highBytes.add(hashCode >>> 24);
+        }
+        assertEquals(1024, hashCodes.size());
+        assertTrue("highBytes.size() > 128", highBytes.size() > 128);
+    }
+
+    @Test
+    public void testFingerprint() {
+        Tagged<String> tagged1 = Tagged.tagged("value", 1);
+        assertEquals(tagged1.fingerprint(), Tagged.tagged(new String("value"), 1).fingerprint());
+        assertTrue("tagged1.fingerprint() != Tagged.tagged(\"value\", 2).fingerprint()", tagged1.fingerprint() != Tagged.tagged("value", 2).fingerprint());
+        assertTrue("tagged1.fingerprint() != Tagged.tagged(\"valuf\", 1).fingerprint()", tagged1.fingerprint() != Tagged.tagged("valuf", 1).fingerprint());
+        Tagged<Tagged<String>> nested = Tagged.tagged(tagged1, 1);
+        assertTrue("nested.fingerprint() != tagged1.fingerprint()", nested.fingerprint() != tagged1.fingerprint());
+        assertEquals(nested.fingerprint(), Tagged.tagged(Tagged.tagged("value", 1), 1).fingerprint());
+        // Fingerprints should never change from one run to another
+        assertEquals(-8720977445773597558L, tagged1.fingerprint());
+    }
+
+    @Test
+    public void testFingerprintDoesNotDependOnCaseOrder() throws Exception {
+        assertEquals(compiledChoiceFingerprint("R some(int value); R none();"),
+                     compiledChoiceFingerprint("R none(); R some(int value);"));
+    }
+
+    private long compiledChoiceFingerprint(String cases) throws Exception {
+        File directory = temporaryFolder.newFolder();
+        ByteArrayOutputStream diagnostics = new ByteArrayOutputStream();
+        int status = compileVisitor(directory, "1.8", "Choice",
+                                    "@GenerateValueClassForVisitor(isPublic = true, fingerprints = true) public interface ChoiceVisitor<R> { " + cases + " }",
+                                    diagnostics);
+        assertEquals(diagnostics.toString(), 0, status);
+        URLClassLoader classLoader = new URLClassLoader(new URL[] {new File(directory, "classes").toURI().toURL()}, getClass().getClassLoader());
+        try {
+            Class<?> choiceClass = classLoader.loadClass("processortest.Choice");
+            Object value = choiceClass.getMethod("some", int.class).invoke(null, 1);
+            return (Long)choiceClass.getMethod("fingerprint").invoke(value);
+        } finally {
+            classLoader.close();
+        }
+    }
+
+    @Test
+    public void testFingerprintKinds() {
+        Object[] values = new Object[] {1, 1L, (short)1, (byte)1, '\u0001', true, 1.0f, 1.0, "1",
+                                        Collections.singletonList(1), new int[] {1}, new Integer[] {1}, new long[] {1L}};
+        for (int i = 0; i < values.length; i++) {
+            for (int j = i + 1; j < values.length; j++) {
+                long fingerprint1 = Tagged.tagged(values[i], 0).fingerprint();
+                long fingerprint2 = Tagged.tagged(values[j], 0).fingerprint();
+                assertTrue("fingerprint of " + i + "-th value != fingerprint of " + j + "-th value", fingerprint1 != fingerprint2);
+            }
+        }
+    }
+
+    @Test
+    public void testSupportedFingerprintFields() throws IOException {
+        File directory = temporaryFolder.newFolder();
+        ByteArrayOutputStream diagnostics = new ByteArrayOutputStream();
+        int status = compileVisitor(directory, "1.8", "Holder",
+                                    "@GenerateValueClassForVisitor(fingerprints = true) public interface HolderVisitor<T, R> {"
+                                    + " R holder(T value, Number number, java.util.List<String> list, Comparable<String> comparable, int[] ints); }",
+                                    diagnostics);
+        assertEquals(diagnostics.toString(), 0, status);
+    }
+
+    @Test
+    public void testUnsupportedFingerprintFields() throws IOException {
+        String[] fieldDeclarations = new String[] {"java.util.Set<String> value", "java.util.UUID[] value", "java.util.List<java.math.BigDecimal> value"};
+        for (int i = 0; i < fieldDeclarations.length; i++) {
+            File directory = temporaryFolder.newFolder();
+            ByteArrayOutputStream diagnostics = new ByteArrayOutputStream();
+            int status = compileVisitor(directory, "1.8", "Holder",
+                                        "@GenerateValueClassForVisitor(fingerprints = true) public interface HolderVisitor<R> {"
+                                        + " R holder(" + fieldDeclarations[i] + "); }",
+                                        diagnostics);
+            String errors = diagnostics.toString();
+            assertTrue(errors, status != 0);
+            assertTrue(errors, errors.contains("Unable to generate fingerprints: value parameter in holder method"));
+        }
+    }
 }
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2014, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll.adt4j;
+
+/**
+ * Array copying used by generated value classes.
+ * <p>
+ * This class is used by generated value classes when {@code copyArrays} is enabled,
+ * see {@link GenerateValueClassForVisitor#copyArrays()}.
+ * Nested arrays are copied as well, so that copy shares no mutable state with original array.
+ */
+public class ArrayCopies {
+    public static boolean[] copyOf(boolean[] array) {
+        return array == null ? null : array.clone();
+    }
+
+    public static byte[] copyOf(byte[] array) {
+        return array == null ? null : array.clone();
+    }
+
+    public static char[] copyOf(char[] array) {
+        return array == null ? null : array.clone();
+    }
+
+    public static short[] copyOf(short[] array) {
+        return array == null ? null : array.clone();
+    }
+
+    public static int[] copyOf(int[] array) {
+        return array == null ? null : array.clone();
+    }
+
+    public static long[] copyOf(long[] array) {
+        return array == null ? null : array.clone();
+    }
+
+    public static float[] copyOf(float[] array) {
+        return array == null ? null : array.clone();
+    }
+
+    public static double[] copyOf(double[] array) {
+        return array == null ? null : array.clone();
+    }
+
+    /**
+     * Copies array of objects.
+     * <p>
+     * Components that are arrays themselves are copied recursively.
+     *
+     * @param <T> type of array components
+     * @param array array to copy, may be null
+     * @return copy of given array or null when array is null
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T[] copyOf(T[] array) {
+        if (array == null)
+            return null;
+        else {
+            T[] result = array.clone();
+            for (int i = 0; i < result.length; i++) {
+                result[i] = (T)copyOfComponent(result[i]);
+            }
+            return result;
+        }
+    }
+
+    private static Object copyOfComponent(Object component) {
+        if (component instanceof Object[])
+            return copyOf((Object[])component);
+        else if (component instanceof boolean[])
+            return copyOf((boolean[])component);
+        else if (component instanceof byte[])
+            return copyOf((byte[])component);
+        else if (component instanceof char[])
+            return copyOf((char[])component);
+        else if (component instanceof short[])
+            return copyOf((short[])component);
+        else if (component instanceof int[])
+            return copyOf((int[])component);
+        else if (component instanceof long[])
+            return copyOf((long[])component);
+        else if (component instanceof float[])
+            return copyOf((float[])component);
+        else if (component instanceof double[])
+            return copyOf((double[])component);
+        else
+            return component;
+    }
+
+    private ArrayCopies() {
+    }
+}
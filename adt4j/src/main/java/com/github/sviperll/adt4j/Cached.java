@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2014, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll.adt4j;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generates memoizing accessor for derived value computed by wrapper class method.
+ * <p>
+ * Annotated method should be declared in wrapper class,
+ * should have no arguments and should return some value computed from wrapped value.
+ * Generated class gets a field to hold computed value and an accessor method,
+ * that evaluates annotated method according to given caching strategy.
+ * <p>
+ * <blockquote><pre><code>
+ *     &#64;WrapsGeneratedValueClass(visitor = ChainVisitor.class)
+ *     public class Chain&lt;T&gt; extends ChainBase&lt;T&gt; {
+ *         &#64;Cached
+ *         int computeLength() {
+ *             return accept(new ChainVisitor&lt;T, Integer&gt;() {
+ *                 public Integer end() {
+ *                     return 0;
+ *                 }
+ *                 public Integer link(T head, Chain&lt;T&gt; tail) {
+ *                     return 1 + tail.length();
+ *                 }
+ *             });
+ *         }
+ *     }
+ * </code></pre></blockquote>
+ * <p>
+ * Generated {@code length} method is evaluated at most once per value for recursive structures,
+ * so that repeated traversals are replaced with field access.
+ *
+ * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.METHOD)
+@Documented
+public @interface Cached {
+    /**
+     * Name of generated accessor.
+     * <p>
+     * Name argument for Cached annotation can be omitted.
+     * In such case annotated method name should start with "compute"-prefix,
+     * generated accessor name is chosen by removing this prefix.
+     *
+     * @return Name of generated accessor.
+     */
+    String name() default ":auto";
+
+    /**
+     * Java's access modifier for generated accessor.
+     *
+     * @return Java's access modifier for generated accessor.
+     */
+    MemberAccess access() default MemberAccess.PUBLIC;
+
+    /**
+     * Caching strategy for computed value.
+     * <p>
+     * {@code SIMPLE} strategy recomputes value when it is {@code null}, zero or {@code false}.
+     * {@code PRECOMPUTE} strategy computes value once when new value is created by generated methods,
+     * wrapper class constructor copies precomputed value from wrapped instance.
+     * Precomputed value is stored in volatile field, since it is assigned after wrapper class constructor completes,
+     * so values with precomputed methods can be safely shared between threads without synchronization.
+     *
+     * @return caching strategy for computed value
+     * @see Caching
+     */
+    Caching caching() default Caching.SIMPLE;
+}
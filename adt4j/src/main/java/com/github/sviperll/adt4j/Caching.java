@@ -43,6 +43,14 @@ public enum Caching {
      */
     SIMPLE,
 
+    /**
+     * Lock-free lazy evaluation.
+     * Actual value is stored with compare-and-set after first execution,
+     * so that every thread observes the same stored value without taking any lock.
+     * Single execution is not garanteed in the case of multi-threaded code
+     */
+    ATOMIC,
+
     /**
      * Lazy evaluation with thread synchronization.
      * Value will be evaluated at most once.
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2014, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll.adt4j;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Overrides how visitor-method argument is treated by generated equals, hashCode and compareTo methods.
+ * <p>
+ * By default every field is compared structurally: objects are compared with equals method
+ * and every element of every array is visited.
+ * Annotated argument can be compared by reference, or can be excluded from comparison altogether,
+ * so that hashing and comparison of values with large payloads doesn't depend on payload size.
+ * <p>
+ * <blockquote><pre><code>
+ *     interface BlobVisitor&lt;R&gt; {
+ *         R blob(String id, &#64;Equality(FieldEquality.EXCLUDED) byte[] payload);
+ *     }
+ * </code></pre></blockquote>
+ * <p>
+ * toString method still includes every field.
+ * <p>
+ * Generated equals method doesn't compare fields in declaration order,
+ * see {@link #priority()}.
+ *
+ * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.PARAMETER)
+@Documented
+public @interface Equality {
+    /**
+     * Policy used to compare and hash annotated argument.
+     *
+     * @return policy used to compare and hash annotated argument
+     * @see FieldEquality
+     */
+    FieldEquality value() default FieldEquality.STRUCTURAL;
+
+    /**
+     * Priority of annotated argument in generated equals method.
+     * <p>
+     * Generated equals method compares fields with higher priority first.
+     * Fields with the same priority are ordered by estimated cost of comparison:
+     * primitives and references compared by identity go first,
+     * then boxed primitives, strings and enums,
+     * then other objects, and arrays go last.
+     * <p>
+     * Priority can be used to compare first fields that are most likely to differ.
+     * compareTo method always compares fields in declaration order.
+     *
+     * @return priority of annotated argument in generated equals method
+     */
+    int priority() default 0;
+}
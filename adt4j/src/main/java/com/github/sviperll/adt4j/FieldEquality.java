@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2014, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll.adt4j;
+
+/**
+ * Policy used to compare and hash single field in generated equals, hashCode and compareTo methods.
+ *
+ * @see Equality
+ */
+public enum FieldEquality {
+    /**
+     * Field is compared with equals method and hashed with hashCode method.
+     * Array contents are compared and hashed element by element, nested arrays are traversed recursively.
+     */
+    STRUCTURAL,
+
+    /**
+     * Array contents are compared and hashed element by element,
+     * but array elements of object type are compared by reference and hashed with {@link System#identityHashCode(Object)}.
+     * Can be used with arrays of objects only and can't be used with comparable classes.
+     */
+    SHALLOW,
+
+    /**
+     * Field is compared by reference and hashed with {@link System#identityHashCode(Object)}.
+     * Useful for canonical instances and handles.
+     * Can be used with object fields only and can't be used with comparable classes.
+     */
+    IDENTITY,
+
+    /**
+     * Field is ignored by equals, hashCode and compareTo methods.
+     * Useful for cached metadata or large payloads that are determined by other fields.
+     * Can't be used with interned classes, since interning replaces equal values with each other.
+     */
+    EXCLUDED
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2014, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll.adt4j;
+
+/**
+ * Hash sink that computes 64-bit fingerprint of streamed values.
+ * <p>
+ * Every value is mixed into fingerprint with xxHash64 round function and
+ * the result is passed through xxHash64 avalanche function.
+ * Fingerprint of the same sequence of values is the same in every JVM run,
+ * so fingerprints can be used as cache keys or stored along with values.
+ * <p>
+ * Fingerprint is not a cryptographic hash: it is easy to construct different values with the same fingerprint.
+ *
+ * @see GenerateValueClassForVisitor#fingerprints()
+ */
+public final class Fingerprint implements HashSink {
+    private static final long PRIME1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME3 = 0x165667B19E3779F9L;
+    private static final long PRIME4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME5 = 0x27D4EB2F165667C5L;
+
+    /**
+     * Computes fingerprint of given value.
+     *
+     * @param value value to compute fingerprint of
+     * @return 64-bit fingerprint
+     */
+    public static long of(Fingerprintable value) {
+        Fingerprint fingerprint = new Fingerprint();
+        value.hashInto(fingerprint);
+        return fingerprint.value();
+    }
+
+    private long state;
+    private long count = 0;
+
+    public Fingerprint() {
+        this(0L);
+    }
+
+    /**
+     * Creates fingerprint with given seed.
+     * <p>
+     * Different seeds give independent fingerprints of the same values.
+     *
+     * @param seed seed of fingerprint
+     */
+    public Fingerprint(long seed) {
+        state = seed + PRIME5;
+    }
+
+    @Override
+    public void putBoolean(boolean value) {
+        putLong(value ? 1L : 0L);
+    }
+
+    @Override
+    public void putByte(byte value) {
+        putLong(value);
+    }
+
+    @Override
+    public void putShort(short value) {
+        putLong(value);
+    }
+
+    @Override
+    public void putChar(char value) {
+        putLong(value);
+    }
+
+    @Override
+    public void putInt(int value) {
+        putLong(value);
+    }
+
+    @Override
+    public void putLong(long value) {
+        long k = Long.rotateLeft(value * PRIME2, 31) * PRIME1;
+        state = Long.rotateLeft(state ^ k, 27) * PRIME1 + PRIME4;
+        count++;
+    }
+
+    @Override
+    public void putFloat(float value) {
+        putLong(Float.floatToIntBits(value));
+    }
+
+    @Override
+    public void putDouble(double value) {
+        putLong(Double.doubleToLongBits(value));
+    }
+
+    @Override
+    public void putString(String value) {
+        int length = value.length();
+        putLong(length);
+        int i = 0;
+        // Four characters are mixed in at once
+        for (; i + 4 <= length; i += 4) {
+            putLong((long)value.charAt(i)
+                    | (long)value.charAt(i + 1) << 16
+                    | (long)value.charAt(i + 2) << 32
+                    | (long)value.charAt(i + 3) << 48);
+        }
+        for (; i < length; i++) {
+            putLong(value.charAt(i));
+        }
+    }
+
+    /**
+     * Fingerprint of values streamed so far.
+     *
+     * @return 64-bit fingerprint
+     */
+    public long value() {
+        long result = state ^ count;
+        result ^= result >>> 33;
+        result *= PRIME2;
+        result ^= result >>> 29;
+        result *= PRIME3;
+        result ^= result >>> 32;
+        return result;
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2014, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll.adt4j;
+
+/**
+ * Value that can be streamed into hash sink.
+ * <p>
+ * Generated value classes implement this interface when {@code fingerprints} is enabled,
+ * see {@link GenerateValueClassForVisitor#fingerprints()}.
+ * You can implement this interface for classes used as fields of generated value classes.
+ * <p>
+ * Equal values should put the same sequence of primitive values into hash sink.
+ * Sequence should depend only on the value itself and not on identity hash codes, memory addresses
+ * or anything else that changes from one JVM run to another.
+ * <p>
+ * Fingerprints are meant to be stored and compared across program versions,
+ * so sequence is a part of persistent schema of a value.
+ * Generated classes put case name followed by fields of the case in declaration order.
+ * Reordering cases doesn't change fingerprints,
+ * but renaming cases, adding, removing, reordering or changing types of fields of a case,
+ * or changing field equality, changes fingerprints of values of that case.
+ *
+ * @see HashSink
+ * @see Fingerprint
+ */
+public interface Fingerprintable {
+    /**
+     * Puts every component of this value into given hash sink.
+     *
+     * @param sink hash sink to put components into
+     */
+    void hashInto(HashSink sink);
+}
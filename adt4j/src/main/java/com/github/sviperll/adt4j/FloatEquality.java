@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2016, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll.adt4j;
+
+/**
+ * Comparison strategy for {@code float} and {@code double} fields of generated value classes.
+ * <p>
+ * Strategy is used by generated equals, hashCode and compareTo methods,
+ * so that equal values always get equal hash codes.
+ *
+ * @see GenerateValueClassForVisitor#floatEquality()
+ */
+public enum FloatEquality {
+    /**
+     * Values are compared by their bit representation,
+     * like {@link Double#equals(Object)} and {@link Double#compare(double, double)} do.
+     * <p>
+     * {@code NaN} is equal to itself and {@code 0.0} is not equal to {@code -0.0}.
+     * This is the fastest strategy and the only one that keeps equals method reflexive.
+     */
+    BITWISE,
+
+    /**
+     * Values are compared with {@code ==} operator.
+     * <p>
+     * {@code 0.0} is equal to {@code -0.0}, but {@code NaN} is not equal to itself,
+     * so that values with {@code NaN} fields are never equal to anything.
+     */
+    IEEE,
+
+    /**
+     * Values are equal when their difference is not greater than
+     * {@code floatEpsilon} or {@code doubleEpsilon}.
+     * <p>
+     * Such equality is not transitive and
+     * can't be represented by hash code,
+     * so fields of floating-point types are not used by generated hashCode method.
+     *
+     * @see GenerateValueClassForVisitor#floatEpsilon()
+     * @see GenerateValueClassForVisitor#doubleEpsilon()
+     */
+    EPSILON
+}
@@ -60,12 +60,45 @@ public @interface GenerateValueClassForVisitor {
      * <p>
      * Accept method perform actual "visit".
      * <p>
+     * Generated {@code tag} and {@code kind} methods get the same access modifier.
+     * <p>
      * Default is public.
-     * 
+     *
      * @return Java's access modifier for generated accept-method.
      */
     MemberAccess acceptMethodAccess() default MemberAccess.PUBLIC;
 
+    /**
+     * Specifies weather accept-methods with primitive result should be generated.
+     * <p>
+     * When enabled, generated class gets nested {@code IntVisitor}, {@code LongVisitor},
+     * {@code DoubleVisitor} and {@code BooleanVisitor} interfaces.
+     * These interfaces have the same methods as visitor-interface,
+     * but methods return {@code int}, {@code long}, {@code double} and {@code boolean} values.
+     * Generated class gets matching accept-methods, named by appending type name to accept-method name,
+     * i. e. {@code acceptInt}, {@code acceptLong}, {@code acceptDouble} and {@code acceptBoolean}.
+     * <p>
+     * Primitive visitors allow to evaluate expressions or to compute sizes without boxing of results.
+     *
+     * @return weather accept-methods with primitive result should be generated
+     */
+    boolean primitiveVisitors() default false;
+
+    /**
+     * Specifies weather accept-method with context argument should be generated.
+     * <p>
+     * When enabled, generated class gets nested {@code ContextVisitor} interface.
+     * It has the same methods as visitor-interface,
+     * but every method gets additional first argument of context type.
+     * Generated class gets an overload of accept-method with visitor and context arguments.
+     * <p>
+     * Environment or accumulator can be passed as context argument,
+     * so that visitor can be implemented as a stateless singleton instead of being allocated on every call.
+     *
+     * @return weather accept-method with context argument should be generated
+     */
+    boolean contextVisitors() default false;
+
     /**
      * Name of generated class (algebraic data type).
      * <p>
@@ -149,6 +182,12 @@ public @interface GenerateValueClassForVisitor {
      * <p>
      * You can leave the extendsClass parameter out.
      * Generated classes will extends this class.
+     * <p>
+     * When extendsClass is not given,
+     * every case of generated class is implemented as a subclass of generated class itself,
+     * so that each value is represented by a single object.
+     * When wrapperClass is used, wrapper instance is created directly from such case object,
+     * without any intermediate instance of generated class.
      * @return Class name of class to extend.
      */
     Class<?> extendsClass() default Object.class;
@@ -173,6 +212,18 @@ public @interface GenerateValueClassForVisitor {
      */
     int hashCodeBase() default 37;
 
+    /**
+     * Algorithm used by generated hashCode method to combine hash codes of fields.
+     * <p>
+     * Default is {@code POLYNOMIAL}.
+     * Other algorithms should be used when values are used as keys of hash tables
+     * and have small integer, boolean or enum fields.
+     *
+     * @return algorithm used by generated hashCode method
+     * @see HashAlgorithm
+     */
+    HashAlgorithm hashAlgorithm() default HashAlgorithm.POLYNOMIAL;
+
     /**
      * hashCode method caching strategy.
      * <p>
@@ -189,6 +240,87 @@ public @interface GenerateValueClassForVisitor {
      */
     Caching hashCodeCaching() default Caching.NONE;
 
+    /**
+     * Interning strategy for generated class.
+     * <p>
+     * When interning is enabled, static factory methods and updaters
+     * return canonical instances, so that equal values are usually represented by the same object.
+     * This reduces memory footprint when same values are constructed many times
+     * and speeds up equals method, since identical objects are compared without traversing their structure.
+     * <p>
+     * Generated class gets static {@code internTable} method to inspect intern table statistics.
+     * <p>
+     * Interning requires adt4j library to be present at run-time, see {@link InternTable}.
+     *
+     * @return interning strategy for generated class
+     * @see Interning
+     */
+    Interning interning() default Interning.NONE;
+
+    /**
+     * Maximum number of canonical instances for {@code BOUNDED} interning strategy.
+     *
+     * @return maximum number of canonical instances for {@code BOUNDED} interning strategy
+     * @see Interning#BOUNDED
+     */
+    int internTableSize() default 1024;
+
+    /**
+     * Specifies weather small primitive fields should be packed.
+     * <p>
+     * When enabled, {@code boolean}, {@code byte}, {@code char} and {@code short} arguments of the same case
+     * are stored together in one or more {@code int} or {@code long} fields of case class.
+     * Packing is used only for cases with at least two such arguments.
+     * Packed arguments are never stored in generated class itself, even when they have getters in every case.
+     * <p>
+     * Packing reduces memory footprint when lots of values are kept alive at the cost of
+     * some bit-twiddling on every field access.
+     *
+     * @return weather small primitive fields should be packed
+     */
+    boolean packFields() default false;
+
+    /**
+     * Specifies weather array arguments should be copied.
+     * <p>
+     * When enabled, static factory methods and updaters store copies of array arguments,
+     * nested arrays are copied as well.
+     * Array getters return copies of stored arrays.
+     * Arrays passed to visitors by accept-method are not copied and should not be modified.
+     * <p>
+     * Copying makes values with array fields effectively immutable,
+     * so that {@code hashCodeCaching} can be safely used to avoid traversal of array contents
+     * on every hashCode call.
+     * <p>
+     * Copying requires adt4j library to be present at run-time, see {@link ArrayCopies}.
+     *
+     * @return weather array arguments should be copied
+     */
+    boolean copyArrays() default false;
+
+    /**
+     * Specifies weather stable fingerprints should be generated.
+     * <p>
+     * When enabled, generated class implements {@link Fingerprintable} interface and
+     * gets {@code hashInto} method, that puts case name and every field into given {@link HashSink},
+     * and {@code fingerprint} method, that returns 64-bit {@link Fingerprint} of value.
+     * Unlike hash codes, fingerprints are the same in every JVM run.
+     * <p>
+     * Fields should be primitives, strings, boxed primitives, enums, lists, arrays or
+     * implement {@link Fingerprintable} interface, otherwise compilation error is reported.
+     * Fields of type-variable types or of supertypes of supported types, like {@code Object} or {@code Number},
+     * are checked at run-time, {@code IllegalArgumentException} is thrown for unsupported values.
+     * Fields excluded from equals are excluded from fingerprint as well,
+     * see {@link Equality}.
+     * {@code IDENTITY} and {@code SHALLOW} field equalities can't be used,
+     * and float equality should be {@code BITWISE}, so that equal values always have equal fingerprints.
+     * <p>
+     * Fingerprints require adt4j library to be present at run-time.
+     *
+     * @return weather stable fingerprints should be generated
+     */
+    boolean fingerprints() default false;
+
     /**
      * Specifies weather generated class should be serializable.
      *
@@ -214,8 +346,30 @@ public @interface GenerateValueClassForVisitor {
      */
     long serialVersionUID() default 1L;
 
+    /**
+     * Comparison strategy for {@code float} and {@code double} fields.
+     * <p>
+     * Default is {@code BITWISE}: fields are compared like {@link Double#equals(Object)} does.
+     *
+     * @return comparison strategy for {@code float} and {@code double} fields
+     * @see FloatEquality
+     */
+    FloatEquality floatEquality() default FloatEquality.BITWISE;
+
+    /**
+     * Maximum difference of equal {@code float} fields for {@code EPSILON} float equality.
+     *
+     * @return maximum difference of equal {@code float} fields
+     * @see FloatEquality#EPSILON
+     */
     float floatEpsilon() default 0.000001f;
-    double doubleEpsilon() default 0.000000000001;
 
+    /**
+     * Maximum difference of equal {@code double} fields for {@code EPSILON} float equality.
+     *
+     * @return maximum difference of equal {@code double} fields
+     * @see FloatEquality#EPSILON
+     */
+    double doubleEpsilon() default 0.000000000001;
 
 }
@@ -57,7 +57,6 @@ import java.util.logging.Logger;
 import javax.annotation.processing.AbstractProcessor;
 import javax.annotation.processing.RoundEnvironment;
 import javax.annotation.processing.SupportedAnnotationTypes;
-import javax.annotation.processing.SupportedSourceVersion;
 import javax.lang.model.SourceVersion;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.TypeElement;
@@ -65,13 +64,18 @@ import javax.lang.model.util.Elements;
 import javax.tools.Diagnostic;
 
 @SupportedAnnotationTypes({"com.github.sviperll.adt4j.GenerateValueClassForVisitor",
+                           "com.github.sviperll.adt4j.Cached",
+                           "com.github.sviperll.adt4j.Equality",
                            "com.github.sviperll.adt4j.GeneratePredicate",
                            "com.github.sviperll.adt4j.GeneratePredicates",
+                           "com.github.sviperll.adt4j.Intern",
+                           "com.github.sviperll.adt4j.Lazy",
+                           "com.github.sviperll.adt4j.Specialize",
                            "com.github.sviperll.adt4j.Getter",
                            "com.github.sviperll.adt4j.Updater",
+                           "com.github.sviperll.adt4j.ValueCache",
                            "com.github.sviperll.adt4j.Visitor",
                            "com.github.sviperll.adt4j.WrapsGeneratedValueClass"})
-@SupportedSourceVersion(SourceVersion.RELEASE_7)
 public class GenerateValueClassForVisitorProcessor extends AbstractProcessor {
     private static final Logger logger = Logger.getLogger(GenerateValueClassForVisitorProcessor.class.getName());
     private static final Visitor DEFAULT_VISITOR_IMPLEMENTATION;
@@ -102,6 +106,12 @@ public class GenerateValueClassForVisitorProcessor extends AbstractProcessor {
     private final Set<String> remainingElements = new HashSet<>();
     private final Map<String, List<String>> errorMap = new TreeMap<>();
 
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        // Generated code depends on source version, see Types class
+        return SourceVersion.latestSupported();
+    }
+
     @Override
     public boolean process(Set<? extends TypeElement> annotations,
                            RoundEnvironment roundEnv) {
@@ -166,6 +176,7 @@ public class GenerateValueClassForVisitorProcessor extends AbstractProcessor {
     private class ElementProcessor {
         private final Set<? extends TypeElement> elements;
         private final JCodeModel jCodeModel;
+        private Map<String, Stage1ValueClassModel> stage1 = new TreeMap<>();
         ElementProcessor(Set<? extends TypeElement> elements, JCodeModel jCodeModel) {
             this.elements = elements;
             this.jCodeModel = jCodeModel;
@@ -173,7 +184,7 @@ public class GenerateValueClassForVisitorProcessor extends AbstractProcessor {
 
         private Map<String, TypeElement> generateClassesWithErrors() throws RuntimeException {
             Map<String, Stage0ValueClassModel> stage0 = processStage0();
-            Map<String, Stage1ValueClassModel> stage1 = processStage1(stage0);
+            stage1 = processStage1(stage0);
             Map<String, TypeElement> generatedClasses = processStage2(stage1);
             return generatedClasses;
         }
@@ -181,11 +192,25 @@ public class GenerateValueClassForVisitorProcessor extends AbstractProcessor {
         void generateClasses() {
             Map<String, TypeElement> generatedClasses = generateClassesWithErrors();
             reportErrors(generatedClasses);
+            generateSpecializedVisitors();
         }
 
         void generateClassesWithoutErrors() {
             Map<String, TypeElement> generatedClasses = generateClassesWithErrors();
             hideErrors(generatedClasses);
+            generateSpecializedVisitors();
+        }
+
+        private void generateSpecializedVisitors() {
+            Elements elementUtils = processingEnv.getElementUtils();
+            JCodeModelJavaxLangModelAdapter adapter = new JCodeModelJavaxLangModelAdapter(new JCodeModel(), elementUtils);
+            CheckExistingJDefinedClassFactory factory = new CheckExistingJDefinedClassFactory(adapter, elementUtils);
+            for (Entry<String, Stage1ValueClassModel> stage1Model: stage1.entrySet()) {
+                GenerationProcess generation = new GenerationProcess();
+                generation.reportAllErrors(errorMap.get(stage1Model.getKey()));
+                generation.processGenerationResult(stage1Model.getValue().createSpecializedVisitors(factory));
+                errorMap.put(stage1Model.getKey(), generation.reportedErrors());
+            }
         }
 
         private void hideErrors(Map<String, TypeElement> generatedClasses) {
@@ -322,7 +347,7 @@ public class GenerateValueClassForVisitorProcessor extends AbstractProcessor {
                     }
                 } else if (generateAnnotation != null) {
                     Stage0ValueClassModel stage0Model = stage0Results.get(element.getQualifiedName().toString());
-                    Stage1ValueClassModel model = generation.processGenerationResult(stage0Model.createStage1Model(jelement, visitorAnnotation));
+                    Stage1ValueClassModel model = generation.processGenerationResult(stage0Model.createStage1Model(jelement, visitorAnnotation, processingEnv.getSourceVersion()));
                     if (model != null)
                         result.put(element.getQualifiedName().toString(), model);
                 }
@@ -359,6 +384,19 @@ public class GenerateValueClassForVisitorProcessor extends AbstractProcessor {
 
             @Override
             public JDefinedClass defineClass(String packageName, int mods, String className) throws JClassAlreadyExistsException {
+                checkNonExisting(packageName, className);
+                JPackage _package = jCodeModel._package(packageName);
+                return _package._class(mods, className);
+            }
+
+            @Override
+            public JDefinedClass defineInterface(String packageName, int mods, String interfaceName) throws JClassAlreadyExistsException {
+                checkNonExisting(packageName, interfaceName);
+                JPackage _package = jCodeModel._package(packageName);
+                return _package._interface(mods, interfaceName);
+            }
+
+            private void checkNonExisting(String packageName, String className) throws JClassAlreadyExistsException {
                 TypeElement typeElement = elementUtils.getTypeElement(packageName + "." + className);
                 if (typeElement != null) {
                     JDefinedClass existing;
@@ -369,8 +407,6 @@ public class GenerateValueClassForVisitorProcessor extends AbstractProcessor {
                     }
                     throw new JClassAlreadyExistsException(existing);
                 }
-                JPackage _package = jCodeModel._package(packageName);
-                return _package._class(mods, className);
             }
         }
 
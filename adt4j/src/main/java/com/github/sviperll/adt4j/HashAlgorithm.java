@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2016, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll.adt4j;
+
+/**
+ * Algorithm used by generated hashCode method to combine hash codes of fields.
+ * <p>
+ * Every algorithm is emitted inline into generated class,
+ * so that generated code gets no run-time dependency on adt4j library.
+ *
+ * @see GenerateValueClassForVisitor#hashAlgorithm()
+ */
+public enum HashAlgorithm {
+    /**
+     * Hash codes of fields are combined as coefficients of polynomial
+     * with {@code hashCodeBase} argument, like {@link java.util.Arrays#hashCode(Object[])} does.
+     * <p>
+     * This is the cheapest algorithm,
+     * but values with small integer, boolean or enum fields get clustered hash codes.
+     *
+     * @see GenerateValueClassForVisitor#hashCodeBase()
+     */
+    POLYNOMIAL,
+
+    /**
+     * Polynomial hash code is passed through MurmurHash3 finalizer.
+     * <p>
+     * Finalizer spreads every bit of polynomial hash code over all bits of the result,
+     * so that values get well-distributed hash codes at the cost of a few multiplications per value.
+     * Values with equal polynomial hash codes still collide.
+     */
+    FINALIZED,
+
+    /**
+     * Hash codes of fields are combined with MurmurHash3 mixing function and
+     * the result is passed through MurmurHash3 finalizer.
+     * <p>
+     * This is the most expensive algorithm,
+     * but it gets well-distributed hash codes even for values that differ by permutation of fields.
+     * {@code hashCodeBase} argument is not used.
+     */
+    MURMUR3
+}
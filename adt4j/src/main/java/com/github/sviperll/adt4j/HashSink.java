@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2014, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll.adt4j;
+
+/**
+ * Consumer of primitive values that computes some hash of them.
+ * <p>
+ * Generated value classes stream every field into hash sink with {@code hashInto} method,
+ * see {@link GenerateValueClassForVisitor#fingerprints()}.
+ * Hash sink should not allocate memory to process values,
+ * so that values can be hashed without producing garbage.
+ *
+ * @see Fingerprint
+ * @see Fingerprintable
+ */
+public interface HashSink {
+    void putBoolean(boolean value);
+
+    void putByte(byte value);
+
+    void putShort(short value);
+
+    void putChar(char value);
+
+    void putInt(int value);
+
+    void putLong(long value);
+
+    void putFloat(float value);
+
+    void putDouble(double value);
+
+    /**
+     * Puts every character of given string into hash sink.
+     * <p>
+     * Length of string should be put into hash sink as well,
+     * so that sequence of strings gets different hash when strings are split differently.
+     *
+     * @param value string to put into hash sink
+     */
+    void putString(String value);
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2014, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll.adt4j;
+
+import java.util.List;
+
+/**
+ * Hashing of objects used by generated value classes.
+ * <p>
+ * This class is used by generated value classes when {@code fingerprints} is enabled,
+ * see {@link GenerateValueClassForVisitor#fingerprints()}.
+ */
+public class HashSinks {
+    // Kind of every value is hashed before value itself,
+    // so that values of different kinds with the same bits get different hashes
+    private static final byte NULL = 0;
+    private static final byte FINGERPRINTABLE = 1;
+    private static final byte STRING = 2;
+    private static final byte INTEGER = 3;
+    private static final byte LONG = 4;
+    private static final byte BOOLEAN = 5;
+    private static final byte CHARACTER = 6;
+    private static final byte BYTE = 7;
+    private static final byte SHORT = 8;
+    private static final byte FLOAT = 9;
+    private static final byte DOUBLE = 10;
+    private static final byte ENUM = 11;
+    private static final byte LIST = 12;
+    private static final byte OBJECT_ARRAY = 13;
+    private static final byte BYTE_ARRAY = 14;
+    private static final byte INT_ARRAY = 15;
+    private static final byte LONG_ARRAY = 16;
+    private static final byte CHAR_ARRAY = 17;
+    private static final byte BOOLEAN_ARRAY = 18;
+    private static final byte SHORT_ARRAY = 19;
+    private static final byte FLOAT_ARRAY = 20;
+    private static final byte DOUBLE_ARRAY = 21;
+
+    /**
+     * Puts given object into hash sink.
+     * <p>
+     * Strings, boxed primitives, enums, lists, arrays and instances of {@link Fingerprintable}
+     * are supported.
+     * Enums are hashed by name, so that hash doesn't change when enum constants are reordered.
+     * Kind of value is hashed together with value,
+     * so that, for example, {@code Integer} 1 and {@code Long} 1 have different hashes.
+     *
+     * @param sink hash sink to put object into
+     * @param value object to put, may be null
+     * @throws IllegalArgumentException when no stable hash of given object can be computed
+     */
+    public static void putObject(HashSink sink, Object value) {
+        if (value == null)
+            sink.putByte(NULL);
+        else if (value instanceof Fingerprintable) {
+            sink.putByte(FINGERPRINTABLE);
+            ((Fingerprintable)value).hashInto(sink);
+        } else if (value instanceof String) {
+            sink.putByte(STRING);
+            sink.putString((String)value);
+        } else if (value instanceof Integer) {
+            sink.putByte(INTEGER);
+            sink.putInt((Integer)value);
+        } else if (value instanceof Long) {
+            sink.putByte(LONG);
+            sink.putLong((Long)value);
+        } else if (value instanceof Boolean) {
+            sink.putByte(BOOLEAN);
+            sink.putBoolean((Boolean)value);
+        } else if (value instanceof Character) {
+            sink.putByte(CHARACTER);
+            sink.putChar((Character)value);
+        } else if (value instanceof Byte) {
+            sink.putByte(BYTE);
+            sink.putByte((Byte)value);
+        } else if (value instanceof Short) {
+            sink.putByte(SHORT);
+            sink.putShort((Short)value);
+        } else if (value instanceof Float) {
+            sink.putByte(FLOAT);
+            sink.putFloat((Float)value);
+        } else if (value instanceof Double) {
+            sink.putByte(DOUBLE);
+            sink.putDouble((Double)value);
+        } else if (value instanceof Enum) {
+            sink.putByte(ENUM);
+            sink.putString(((Enum<?>)value).name());
+        } else if (value instanceof List) {
+            sink.putByte(LIST);
+            putList(sink, (List<?>)value);
+        } else if (value.getClass().isArray())
+            putArray(sink, value);
+        else
+            throw new IllegalArgumentException("Unable to hash " + value.getClass().getName()
+                                               + " instance: class should implement " + Fingerprintable.class.getName() + " interface");
+    }
+
+    private static void putList(HashSink sink, List<?> list) {
+        sink.putInt(list.size());
+        for (Object element: list) {
+            putObject(sink, element);
+        }
+    }
+
+    private static void putArray(HashSink sink, Object array) {
+        if (array instanceof Object[]) {
+            sink.putByte(OBJECT_ARRAY);
+            Object[] objects = (Object[])array;
+            sink.putInt(objects.length);
+            for (Object element: objects)
+                putObject(sink, element);
+        } else if (array instanceof byte[]) {
+            sink.putByte(BYTE_ARRAY);
+            byte[] bytes = (byte[])array;
+            sink.putInt(bytes.length);
+            for (byte element: bytes)
+                sink.putByte(element);
+        } else if (array instanceof int[]) {
+            sink.putByte(INT_ARRAY);
+            int[] ints = (int[])array;
+            sink.putInt(ints.length);
+            for (int element: ints)
+                sink.putInt(element);
+        } else if (array instanceof long[]) {
+            sink.putByte(LONG_ARRAY);
+            long[] longs = (long[])array;
+            sink.putInt(longs.length);
+            for (long element: longs)
+                sink.putLong(element);
+        } else if (array instanceof char[]) {
+            sink.putByte(CHAR_ARRAY);
+            char[] chars = (char[])array;
+            sink.putInt(chars.length);
+            for (char element: chars)
+                sink.putChar(element);
+        } else if (array instanceof boolean[]) {
+            sink.putByte(BOOLEAN_ARRAY);
+            boolean[] booleans = (boolean[])array;
+            sink.putInt(booleans.length);
+            for (boolean element: booleans)
+                sink.putBoolean(element);
+        } else if (array instanceof short[]) {
+            sink.putByte(SHORT_ARRAY);
+            short[] shorts = (short[])array;
+            sink.putInt(shorts.length);
+            for (short element: shorts)
+                sink.putShort(element);
+        } else if (array instanceof float[]) {
+            sink.putByte(FLOAT_ARRAY);
+            float[] floats = (float[])array;
+            sink.putInt(floats.length);
+            for (float element: floats)
+                sink.putFloat(element);
+        } else if (array instanceof double[]) {
+            sink.putByte(DOUBLE_ARRAY);
+            double[] doubles = (double[])array;
+            sink.putInt(doubles.length);
+            for (double element: doubles)
+                sink.putDouble(element);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2014, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll.adt4j;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks visitor-method argument to be canonicalized by generated factory methods and updaters.
+ * <p>
+ * Generated class gets static {@link InternTable} for every annotated argument.
+ * Argument values are replaced with canonical instances from this table before they are stored,
+ * so that equal field values are usually represented by the same object.
+ * <p>
+ * <blockquote><pre><code>
+ *     interface UserVisitor&lt;R&gt; {
+ *         R valueOf(&#64;Intern String firstName, &#64;Intern String lastName, int age);
+ *     }
+ * </code></pre></blockquote>
+ * <p>
+ * Canonicalization reduces retained heap when lots of values with repeating fields are kept alive,
+ * and makes equals method mostly compare identical objects.
+ * Fields of generated value class type can be canonicalized as well,
+ * but interning of generated class itself should be preferred, see {@link GenerateValueClassForVisitor#interning()}.
+ * <p>
+ * Only non-array object arguments can be canonicalized.
+ * Annotated arguments can't be lazy or variable arguments.
+ * Canonicalization requires adt4j library to be present at run-time.
+ *
+ * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.PARAMETER)
+@Documented
+public @interface Intern {
+    /**
+     * Table used to store canonical instances.
+     * <p>
+     * {@code NONE} is not allowed.
+     *
+     * @return table used to store canonical instances
+     * @see Interning
+     */
+    Interning interning() default Interning.BOUNDED;
+
+    /**
+     * Maximum number of canonical instances for {@code BOUNDED} table.
+     *
+     * @return maximum number of canonical instances for {@code BOUNDED} table
+     */
+    int tableSize() default 1024;
+}
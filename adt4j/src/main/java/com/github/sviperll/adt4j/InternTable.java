@@ -0,0 +1,274 @@
+/*
+ * Copyright (c) 2016, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll.adt4j;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Thread-safe table of canonical instances.
+ * <p>
+ * This class is used by generated value classes when interning is enabled,
+ * see {@link Interning}.
+ * Generated value classes provide static {@code internTable} method
+ * to access their table and inspect hit and miss counts.
+ *
+ * @param <T> type of interned values
+ *
+ * @see GenerateValueClassForVisitor#interning()
+ */
+public abstract class InternTable<T> {
+    /**
+     * Creates table that holds canonical instances with weak references.
+     *
+     * @param <T> type of interned values
+     * @return new table
+     */
+    public static <T> InternTable<T> weak() {
+        return new WeakInternTable<>();
+    }
+
+    /**
+     * Creates table that holds at most given number of canonical instances.
+     * <p>
+     * Table is direct-mapped: new canonical instance evicts previous instance with colliding hash code.
+     *
+     * @param <T> type of interned values
+     * @param size maximum number of canonical instances, rounded up to power of two
+     * @return new table
+     */
+    public static <T> InternTable<T> bounded(int size) {
+        if (size <= 0)
+            throw new IllegalArgumentException("Intern table size should be positive: " + size);
+        int capacity = Integer.highestOneBit(size);
+        if (capacity < size)
+            capacity <<= 1;
+        return new BoundedInternTable<>(capacity);
+    }
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    private InternTable() {
+    }
+
+    /**
+     * Returns canonical instance equal to given value.
+     * <p>
+     * Given value becomes canonical instance if there is no equal canonical instance.
+     *
+     * @param value value to intern
+     * @return canonical instance equal to given value
+     */
+    public final T intern(T value) {
+        if (value == null)
+            throw new NullPointerException("Interned value shouldn't be null");
+        return lookupOrAdd(value);
+    }
+
+    /**
+     * Number of intern-calls that returned previously stored canonical instance.
+     *
+     * @return number of intern-calls that returned previously stored canonical instance
+     */
+    public final long hitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Number of intern-calls that stored new canonical instance.
+     *
+     * @return number of intern-calls that stored new canonical instance
+     */
+    public final long missCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Approximate number of canonical instances currently stored in this table.
+     *
+     * @return approximate number of stored canonical instances
+     */
+    public abstract int size();
+
+    abstract T lookupOrAdd(T value);
+
+    T hit(T canonical) {
+        hitCount.incrementAndGet();
+        return canonical;
+    }
+
+    T miss(T value) {
+        missCount.incrementAndGet();
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{size=" + size() + ", hitCount=" + hitCount() + ", missCount=" + missCount() + "}";
+    }
+
+    private static class WeakInternTable<T> extends InternTable<T> {
+        private final ConcurrentMap<Key, WeakEntry<T>> map = new ConcurrentHashMap<>();
+        private final ReferenceQueue<T> queue = new ReferenceQueue<>();
+
+        @Override
+        public int size() {
+            expungeStaleEntries();
+            return map.size();
+        }
+
+        @Override
+        T lookupOrAdd(T value) {
+            expungeStaleEntries();
+            // Weak reference is created only on miss, hits don't create objects tracked by garbage collector
+            WeakEntry<T> existing = map.get(new LookupKey(value));
+            T canonical = existing == null ? null : existing.get();
+            if (canonical != null)
+                return hit(canonical);
+            WeakEntry<T> entry = new WeakEntry<>(value, queue);
+            for (;;) {
+                existing = map.putIfAbsent(entry, entry);
+                if (existing == null)
+                    return miss(value);
+                canonical = existing.get();
+                if (canonical != null)
+                    return hit(canonical);
+                map.remove(existing, existing);
+            }
+        }
+
+        private void expungeStaleEntries() {
+            for (Object entry = queue.poll(); entry != null; entry = queue.poll()) {
+                map.remove(entry, entry);
+            }
+        }
+    }
+
+    private interface Key {
+        Object referent();
+    }
+
+    private static boolean keysEqual(Key key, int hashCode, Object thatObject) {
+        if (key == thatObject)
+            return true;
+        else if (!(thatObject instanceof Key) || hashCode != thatObject.hashCode())
+            return false;
+        else {
+            Object value = key.referent();
+            return value != null && value.equals(((Key)thatObject).referent());
+        }
+    }
+
+    private static class LookupKey implements Key {
+        private final Object value;
+        private final int hashCode;
+
+        LookupKey(Object value) {
+            this.value = value;
+            this.hashCode = value.hashCode();
+        }
+
+        @Override
+        public Object referent() {
+            return value;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object thatObject) {
+            return keysEqual(this, hashCode, thatObject);
+        }
+    }
+
+    private static class WeakEntry<T> extends WeakReference<T> implements Key {
+        private final int hashCode;
+
+        WeakEntry(T value, ReferenceQueue<? super T> queue) {
+            super(value, queue);
+            this.hashCode = value.hashCode();
+        }
+
+        @Override
+        public Object referent() {
+            return get();
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object thatObject) {
+            return keysEqual(this, hashCode, thatObject);
+        }
+    }
+
+    private static class BoundedInternTable<T> extends InternTable<T> {
+        private final AtomicReferenceArray<T> table;
+
+        BoundedInternTable(int capacity) {
+            this.table = new AtomicReferenceArray<>(capacity);
+        }
+
+        @Override
+        public int size() {
+            int result = 0;
+            for (int i = 0; i < table.length(); i++) {
+                if (table.get(i) != null)
+                    result++;
+            }
+            return result;
+        }
+
+        @Override
+        T lookupOrAdd(T value) {
+            int hashCode = value.hashCode();
+            hashCode ^= hashCode >>> 16;
+            int index = hashCode & (table.length() - 1);
+            T canonical = table.get(index);
+            if (canonical != null && canonical.equals(value))
+                return hit(canonical);
+            else {
+                table.set(index, value);
+                return miss(value);
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2016, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll.adt4j;
+
+/**
+ * Interning strategy for generated value classes.
+ * <p>
+ * When interning is enabled, generated static factory methods and updaters
+ * return canonical instance: equal values are represented by the very same object.
+ * Deserialized values of serializable classes are replaced with canonical instances as well.
+ * <p>
+ * Interned values use generated {@code hashCode} method to find canonical instance,
+ * so you should probably use some hashCode caching strategy together with interning.
+ * <p>
+ * Interning uses {@link InternTable} class,
+ * so generated code gets run-time dependency on adt4j library when interning is enabled.
+ *
+ * @see GenerateValueClassForVisitor#interning()
+ * @see InternTable
+ */
+public enum Interning {
+    /** No interning. Each factory method invocation creates new object */
+    NONE,
+
+    /**
+     * Canonical instances are stored in concurrent table with weak references.
+     * Canonical instance is retained until it's no longer used.
+     */
+    WEAK,
+
+    /**
+     * Canonical instances are stored in fixed size table.
+     * Older instances are evicted from the table when newer instances are added.
+     * Equal values may not be identical when canonical instance is evicted,
+     * but memory used by the table is bounded.
+     *
+     * @see GenerateValueClassForVisitor#internTableSize()
+     */
+    BOUNDED;
+
+    /**
+     * Tells whether canonical instances are used.
+     *
+     * @return false for {@link #NONE}, true otherwise
+     */
+    public boolean enabled() {
+        return this != NONE;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2014, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll.adt4j;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks visitor-method argument as lazily evaluated field.
+ * <p>
+ * Generated class gets additional static factory method named by prefixing case name with "lazy",
+ * i. e. {@code lazyCons}.
+ * This factory method accepts {@link Thunk} instead of actual value for every annotated argument.
+ * Thunk is evaluated on first access to field value through getter, accept-method,
+ * equals, hashCode, compareTo or toString methods.
+ * Ordinary factory method is still generated and stores value as is.
+ * Thunk shouldn't return null unless argument is nullable, otherwise {@link NullPointerException} is thrown on access.
+ * Thunk shouldn't access its own field: {@link IllegalStateException} is thrown in such case.
+ * <p>
+ * <blockquote><pre><code>
+ *     &#64;GenerateValueClassForVisitor(isPublic = true)
+ *     &#64;Visitor(resultVariableName = "R", selfReferenceVariableName = "S")
+ *     public interface StreamVisitor&lt;T, S, R&gt; {
+ *         R cons(T head, &#64;Lazy S tail);
+ *         R nil();
+ *     }
+ * </code></pre></blockquote>
+ * <p>
+ * Lazy fields allow to define lazy streams and other infinite structures,
+ * so that only consumed parts are actually computed and allocated.
+ * <p>
+ * Lazy fields require adt4j library to be present at run-time.
+ * Lazy fields can't be used with serializable classes, with interning, with precomputed hash code
+ * and with value caches.
+ *
+ * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.PARAMETER)
+@Documented
+public @interface Lazy {
+    /**
+     * Evaluation strategy for lazy field.
+     * <p>
+     * {@code NONE} means that thunk is evaluated on every access.
+     * {@code SIMPLE} means that thunk is evaluated on first access,
+     * but can be evaluated more than once when value is accessed concurrently from different threads.
+     * {@code SYNCRONIZED} means that thunk is evaluated exactly once.
+     * <p>
+     * Evaluated thunk is released, so that it can be garbage collected.
+     * {@code PRECOMPUTE} and {@code ATOMIC} strategies are not supported for lazy fields.
+     *
+     * @return evaluation strategy for lazy field
+     * @see Caching
+     */
+    Caching caching() default Caching.SYNCRONIZED;
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2014, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll.adt4j;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generates additional value classes with given type-variable replaced by primitive types.
+ * <p>
+ * For every listed primitive type a specialized visitor-interface is generated
+ * and a value class is generated for this visitor.
+ * Fields of specialized value classes hold primitive values and are never boxed.
+ * Specialized class name is formed by prepending capitalized primitive type name to
+ * the name of wrapper class or generated class.
+ * <p>
+ * <blockquote><pre><code>
+ *     &#64;GenerateValueClassForVisitor(isPublic = true)
+ *     &#64;Specialize(typeVariable = "T", types = {"int", "long"})
+ *     &#64;Visitor(resultVariableName = "R", selfReferenceVariableName = "S")
+ *     interface ListVisitor&lt;T, S, R&gt; {
+ *         R cons(T head, S tail);
+ *         R nil();
+ *     }
+ * </code></pre></blockquote>
+ * <p>
+ * Example above generates {@code List}, {@code IntList} and {@code LongList} classes
+ * and {@code IntListVisitor} and {@code LongListVisitor} interfaces.
+ * References to generated class or wrapper class in visitor-interface
+ * are replaced with references to specialized class.
+ *
+ * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+@Documented
+public @interface Specialize {
+    /**
+     * Name of type-variable to replace.
+     *
+     * @return Name of type-variable to replace.
+     */
+    String typeVariable();
+
+    /**
+     * Names of primitive types to replace type-variable with.
+     * <p>
+     * For example {@code "int"} or {@code "double"}.
+     *
+     * @return Names of primitive types to replace type-variable with.
+     */
+    String[] types();
+}
@@ -29,6 +29,7 @@
  */
 package com.github.sviperll.adt4j.model;
 
+import com.github.sviperll.adt4j.FloatEquality;
 import com.github.sviperll.adt4j.model.config.FloatCustomization;
 import com.github.sviperll.adt4j.model.util.Types;
 import com.github.sviperll.adt4j.model.util.VariableNameSource;
@@ -100,6 +101,29 @@ class CompareToMethod {
         }
 
         private void appendNonnullArray(IJExpression value1, IJExpression value2, AbstractJType type) {
+            if (isArraysCompareApplicable(type)) {
+                JInvocation invocation = types._Arrays.staticInvoke("compare");
+                invocation.arg(value1);
+                invocation.arg(value2);
+                body.assign(resultVariable, invocation);
+                JConditional _if = body._if(resultVariable.ne(JExpr.lit(0)));
+                _if._then()._return(resultVariable);
+            } else {
+                appendNonnullArrayElements(value1, value2, type);
+            }
+        }
+
+        private boolean isArraysCompareApplicable(AbstractJType type) {
+            AbstractJType elementType = type.elementType();
+            if (!types.hasArrayCompareMethods() || !elementType.isPrimitive() || elementType.name().equals("boolean"))
+                return false;
+            else {
+                boolean isFloatingPoint = elementType.name().equals("float") || elementType.name().equals("double");
+                return !isFloatingPoint || floatCustomization.floatEquality() == FloatEquality.BITWISE;
+            }
+        }
+
+        private void appendNonnullArrayElements(IJExpression value1, IJExpression value2, AbstractJType type) {
             JInvocation invocation = types._Math.staticInvoke("min");
             invocation.arg(value1.ref("length"));
             invocation.arg(value2.ref("length"));
@@ -118,17 +142,25 @@ class CompareToMethod {
         }
 
         private void appendPrimitive(AbstractJType type, IJExpression value1, IJExpression value2) {
-            IJExpression equalityCondition;
-            if (!type.name().equals("float") && !type.name().equals("doable")) {
-                equalityCondition = value1.eq(value2);
+            boolean isFloatingPoint = type.name().equals("float") || type.name().equals("double");
+            if (isFloatingPoint && floatCustomization.floatEquality() == FloatEquality.BITWISE) {
+                JInvocation invocation = type.name().equals("float") ? types._Float.staticInvoke("compare") : types._Double.staticInvoke("compare");
+                invocation.arg(value1);
+                invocation.arg(value2);
+                body.assign(resultVariable, invocation);
             } else {
-                IJExpression epsilon = type.name().equals("float") ? JExpr.lit(floatCustomization.floatEpsilon()) : JExpr.lit(floatCustomization.doubleEpsilon());
-                JInvocation invocation = types._Math.staticInvoke("abs");
-                invocation.arg(value1.minus(value2));
-                equalityCondition = invocation.lte(epsilon);
+                IJExpression equalityCondition;
+                if (!isFloatingPoint || floatCustomization.floatEquality() == FloatEquality.IEEE) {
+                    equalityCondition = value1.eq(value2);
+                } else {
+                    IJExpression epsilon = type.name().equals("float") ? JExpr.lit(floatCustomization.floatEpsilon()) : JExpr.lit(floatCustomization.doubleEpsilon());
+                    JInvocation invocation = types._Math.staticInvoke("abs");
+                    invocation.arg(value1.minus(value2));
+                    equalityCondition = invocation.lte(epsilon);
+                }
+                IJExpression condition = JOp.cond(equalityCondition, JExpr.lit(0), JOp.cond(value1.lt(value2), JExpr.lit(-1), JExpr.lit(1)));
+                body.assign(resultVariable, condition);
             }
-            IJExpression condition = JOp.cond(equalityCondition, JExpr.lit(0), JOp.cond(value1.lt(value2), JExpr.lit(-1), JExpr.lit(1)));
-            body.assign(resultVariable, condition);
             JConditional _if = body._if(resultVariable.ne(JExpr.lit(0)));
             _if._then()._return(resultVariable);
         }
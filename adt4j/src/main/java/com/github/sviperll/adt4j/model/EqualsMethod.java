@@ -29,6 +29,7 @@
  */
 package com.github.sviperll.adt4j.model;
 
+import com.github.sviperll.adt4j.FloatEquality;
 import com.github.sviperll.adt4j.model.config.FloatCustomization;
 import com.github.sviperll.adt4j.model.util.Types;
 import com.github.sviperll.adt4j.model.util.VariableNameSource;
@@ -82,6 +83,25 @@ class EqualsMethod {
         }
     }
 
+    void appendIdentityValue(IJExpression value1, IJExpression value2) {
+        JConditional _if = body._if(value1.ne(value2));
+        _if._then()._return(JExpr.FALSE);
+    }
+
+    void appendNullableShallowArray(AbstractJType type, IJExpression value1, IJExpression value2) {
+        JConditional _if = body._if(value1.eq(JExpr._null()));
+        JConditional _if1 = _if._then()._if(value2.ne(JExpr._null()));
+        _if1._then()._return(JExpr.FALSE);
+        JConditional _if2 = _if._else()._if(value2.eq(JExpr._null()));
+        _if2._then()._return(JExpr.FALSE);
+        EqualsMethod innerBody = new EqualsMethod(types, _if2._else(), nameSource, floatCustomization);
+        innerBody.appendNonnullArray(value1, value2, type, true, false);
+    }
+
+    void appendNotNullShallowArray(AbstractJType type, IJExpression value1, IJExpression value2) {
+        appendNonnullArray(value1, value2, type, true, false);
+    }
+
     void appendNotNullValueAndReturn(AbstractJType type, IJExpression value1, IJExpression value2) {
         appendNotNullValue(type, value1, value2, true);
     }
@@ -94,7 +114,7 @@ class EqualsMethod {
         if (!type.isPrimitive() && !type.isArray()) {
             appendNonnullObject(value1, value2, isLast);
         } else if (type.isArray()) {
-            appendNonnullArray(value1, value2, type, isLast);
+            appendNonnullArray(value1, value2, type, false, isLast);
         } else if (type.isPrimitive()) {
             appendNonnullPrimitive(type, value1, value2, isLast);
         } else {
@@ -105,9 +125,15 @@ class EqualsMethod {
     private void appendNonnullPrimitive(AbstractJType type, IJExpression value1, IJExpression value2, boolean isLast) {
         IJExpression equalsCondition;
         IJExpression notEqualsCondition;
-        if (!type.name().equals("float") && !type.name().equals("doable")) {
+        boolean isFloatingPoint = type.name().equals("float") || type.name().equals("double");
+        if (!isFloatingPoint || floatCustomization.floatEquality() == FloatEquality.IEEE) {
             equalsCondition = value1.eq(value2);
             notEqualsCondition = value1.ne(value2);
+        } else if (floatCustomization.floatEquality() == FloatEquality.BITWISE) {
+            IJExpression bits1 = floatingPointBits(type, value1);
+            IJExpression bits2 = floatingPointBits(type, value2);
+            equalsCondition = bits1.eq(bits2);
+            notEqualsCondition = bits1.ne(bits2);
         } else {
             IJExpression epsilon = type.name().equals("float") ? JExpr.lit(floatCustomization.floatEpsilon()) : JExpr.lit(floatCustomization.doubleEpsilon());
             JInvocation invocation = types._Math.staticInvoke("abs");
@@ -123,7 +149,48 @@ class EqualsMethod {
         }
     }
 
-    private void appendNonnullArray(IJExpression value1, IJExpression value2, AbstractJType type, boolean isLast) {
+    private IJExpression floatingPointBits(AbstractJType type, IJExpression value) {
+        JInvocation invocation = type.name().equals("float") ? types._Float.staticInvoke("floatToIntBits") : types._Double.staticInvoke("doubleToLongBits");
+        invocation.arg(value);
+        return invocation;
+    }
+
+    private void appendNonnullArray(IJExpression value1, IJExpression value2, AbstractJType type, boolean isShallow, boolean isLast) {
+        if (isArraysMethodApplicable(type, isShallow, floatCustomization)) {
+            // Arrays.equals is intrinsified by JIT and checks for the same array by itself
+            JInvocation invocation = types._Arrays.staticInvoke("equals");
+            invocation.arg(value1);
+            invocation.arg(value2);
+            if (isLast) {
+                body._return(invocation);
+            } else {
+                JConditional _if = body._if(invocation.not());
+                _if._then()._return(JExpr.FALSE);
+            }
+        } else {
+            // Same array is shared by values produced by updaters, so contents are compared only for different arrays
+            JConditional _if = body._if(value1.ne(value2));
+            EqualsMethod ifBody = new EqualsMethod(types, _if._then(), nameSource, floatCustomization);
+            ifBody.appendNonnullArrayContents(value1, value2, type, isShallow);
+            if (isLast)
+                body._return(JExpr.TRUE);
+        }
+    }
+
+    /**
+     * Tells weather Arrays.equals and Arrays.hashCode methods are equivalent to generated loops for given array type.
+     */
+    static boolean isArraysMethodApplicable(AbstractJType type, boolean isShallow, FloatCustomization floatCustomization) {
+        AbstractJType elementType = type.elementType();
+        if (elementType.isPrimitive()) {
+            boolean isFloatingPoint = elementType.name().equals("float") || elementType.name().equals("double");
+            return !isFloatingPoint || floatCustomization.floatEquality() == FloatEquality.BITWISE;
+        } else {
+            return !isShallow && !elementType.isArray();
+        }
+    }
+
+    private void appendNonnullArrayContents(IJExpression value1, IJExpression value2, AbstractJType type, boolean isShallow) {
         appendNotNullValue(types._int, value1.ref("length"), value2.ref("length"));
         VariableNameSource localNames = nameSource.forBlock();
         JForLoop _for = body._for();
@@ -131,12 +198,12 @@ class EqualsMethod {
         _for.test(i.lt(value1.ref("length")));
         _for.update(i.incr());
         EqualsMethod forBody = new EqualsMethod(types, _for.body(), localNames, floatCustomization);
-        if (type.elementType().isReference())
+        if (type.elementType().isReference() && isShallow)
+            forBody.appendIdentityValue(value1.component(i), value2.component(i));
+        else if (type.elementType().isReference())
             forBody.appendNullableValue(type.elementType(), value1.component(i), value2.component(i));
         else
             forBody.appendNotNullValue(type.elementType(), value1.component(i), value2.component(i));
-        if (isLast)
-            body._return(JExpr.TRUE);
     }
 
     private void appendNonnullObject(IJExpression value1, IJExpression value2, boolean isLast) {
@@ -30,9 +30,16 @@
 package com.github.sviperll.adt4j.model;
 
 import com.github.sviperll.adt4j.Caching;
+import com.github.sviperll.adt4j.FieldEquality;
+import com.github.sviperll.adt4j.HashAlgorithm;
+import com.github.sviperll.adt4j.Interning;
+import com.github.sviperll.adt4j.model.config.CachedMethodConfiguration;
 import com.github.sviperll.adt4j.model.config.FieldConfiguration;
+import com.github.sviperll.adt4j.model.config.FieldEqualityConfiguration;
+import com.github.sviperll.adt4j.model.config.FieldInterningConfiguration;
 import com.github.sviperll.adt4j.model.config.PredicateConfigutation;
 import com.github.sviperll.adt4j.model.config.Serialization;
+import com.github.sviperll.adt4j.model.config.ValueCacheConfiguration;
 import com.github.sviperll.adt4j.model.config.VisitorDefinition;
 import com.github.sviperll.adt4j.model.config.VariableDeclaration;
 import com.github.sviperll.adt4j.model.config.VisitorDefinition.MethodUsage;
@@ -52,19 +59,29 @@ import com.helger.jcodemodel.JDefinedClass;
 import com.helger.jcodemodel.JExpr;
 import com.helger.jcodemodel.JFieldRef;
 import com.helger.jcodemodel.JFieldVar;
+import com.helger.jcodemodel.JForLoop;
 import com.helger.jcodemodel.JInvocation;
 import com.helger.jcodemodel.JMethod;
 import com.helger.jcodemodel.JMod;
 import com.helger.jcodemodel.JOp;
+import com.helger.jcodemodel.JPrimitiveType;
+import com.helger.jcodemodel.JSwitch;
 import com.helger.jcodemodel.JSynchronizedBlock;
+import com.helger.jcodemodel.JTryBlock;
 import com.helger.jcodemodel.JTypeVar;
 import com.helger.jcodemodel.JVar;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
+import java.util.TreeSet;
+import javax.annotation.Nullable;
 
 public class FinalValueClassModel {
     static FinalValueClassModel createErrorModel(FinalValueClassModelEnvironment environment, Types types) {
@@ -78,6 +95,7 @@ public class FinalValueClassModel {
     private final FinalValueClassModelEnvironment environment;
     private final Types types;
     private final boolean isError;
+    private final Map<String, JFieldVar> caseObjectLocks = new TreeMap<>();
 
     private FinalValueClassModel(FinalValueClassModelEnvironment environment, Types modelTypes, boolean isError) {
         this.types = modelTypes;
@@ -89,24 +107,42 @@ public class FinalValueClassModel {
         return Source.decapitalize(environment.valueClassName()) + "HashCode";
     }
 
-    MethodBuilder createMethodBuilder(Serialization serialization) {
+    private String hashCodeComputationMethodName() {
+        return "compute" + environment.valueClassName() + "HashCode";
+    }
+
+    MethodBuilder createMethodBuilder(Serialization serialization, Map<String, FieldConfiguration> getters, Map<String, CachedMethodConfiguration> cachedMethods, Map<String, Map<String, Caching>> lazyFields, Map<String, Map<String, FieldInterningConfiguration>> internedFields, Map<String, Map<String, FieldEqualityConfiguration>> fieldEqualities) {
         if (isError)
-            return new MethodBuilder(null, null);
+            return new MethodBuilder(null, null, null, lazyFields, fieldEqualities, null, null, null, null, null, null, null);
         else {
-            JFieldVar acceptorField = buildAcceptorField();
-            Map<String, JDefinedClass> caseClasses;
-            try {
-                caseClasses = buildCaseClasses(serialization);
-            } catch (JClassAlreadyExistsException ex) {
-                throw new RuntimeException("Unexpected exception :)", ex);
-            }
+            JFieldVar acceptorField;
+            if (environment.isEnumLike())
+                acceptorField = null;
+            else if (environment.caseClassesExtendValueClass())
+                acceptorField = buildImplementationField();
+            else
+                acceptorField = buildAcceptorField();
+            JFieldVar tagField = buildTagField();
             Caching hashCode = environment.hashCodeCaching();
-            if (!hashCode.enabled())
-                return new MethodBuilder(caseClasses, acceptorField);
-            else {
-                JFieldVar hashCodeField = buildHashCodeCachedValueField(serialization);
-                return new MethodBuilder(caseClasses, acceptorField, hashCodeField);
+            JFieldVar lockField = !environment.caseClassesExtendValueClass() || !isLockNeeded(cachedMethods) ? null : buildLockField();
+            JFieldVar hashCodeField = !hashCode.enabled() ? null : buildHashCodeCachedValueField(serialization);
+            JFieldVar internTableField = !environment.interning().enabled() ? null : buildInternTableField();
+            Map<String, Map<String, JFieldVar>> fieldInternTables = buildFieldInternTableFields(internedFields);
+            Map<String, CachedValue> cachedValues = buildCachedValueFields(serialization, cachedMethods);
+            Map<String, Map<String, JFieldVar>> commonFields = buildCommonFields(getters, lazyFields);
+            Map<String, Map<String, PackedField>> packedFields = new TreeMap<>();
+            Map<String, JDefinedClass> caseClasses;
+            if (environment.isEnumLike()) {
+                // Enum-like values are distinguished by tag only, so there are no case classes
+                caseClasses = new TreeMap<>();
+            } else {
+                try {
+                    caseClasses = buildCaseClasses(serialization, commonFields, packedFields, lazyFields);
+                } catch (JClassAlreadyExistsException ex) {
+                    throw new RuntimeException("Unexpected exception :)", ex);
+                }
             }
+            return new MethodBuilder(caseClasses, commonFields, packedFields, lazyFields, fieldEqualities, acceptorField, lockField, tagField, hashCodeField, internTableField, fieldInternTables, cachedValues);
         }
     }
 
@@ -119,20 +155,68 @@ public class FinalValueClassModel {
         return environment.buildValueClassField(JMod.PRIVATE | JMod.FINAL, environment.acceptingInterfaceTypeInsideValueClass(), "acceptor");
     }
 
+    // Case objects are values themselves, so field is set only by copy constructor used by wrapper classes
+    // and is null for case objects
+    private JFieldVar buildImplementationField() {
+        return environment.buildValueClassField(JMod.PRIVATE | JMod.FINAL, environment.unwrappedValueClassTypeInsideValueClass(), "implementation");
+    }
+
+    // Case objects are returned to user code when they extend value class and are not wrapped,
+    // so that value class needs no field pointing to case object
+    private boolean caseObjectsAreValues() {
+        return environment.caseClassesExtendValueClass() && !environment.wrappingEnabled();
+    }
+
+    private boolean isLockNeeded(Map<String, CachedMethodConfiguration> cachedMethods) {
+        if (environment.hashCodeCaching() == Caching.SYNCRONIZED)
+            return true;
+        for (CachedMethodConfiguration cachedMethod: cachedMethods.values()) {
+            if (cachedMethod.caching() == Caching.SYNCRONIZED)
+                return true;
+        }
+        return false;
+    }
+
+    // Values can't be used as locks, since they are accessible to user code.
+    // Empty array is used as private lock, since it's serializable
+    private JFieldVar buildLockField() {
+        return environment.buildValueClassField(JMod.PRIVATE | JMod.FINAL, types._Object, "lock", JExpr.newArray(types._Object, 0));
+    }
+
+    private JFieldVar buildTagField() {
+        return environment.buildValueClassField(JMod.PRIVATE | JMod.FINAL, types._int, "tag");
+    }
+
+    private int caseTag(String interfaceMethodName) {
+        int tag = 0;
+        for (JMethod interfaceMethod: environment.visitorDefinition().methodDefinitions()) {
+            if (interfaceMethod.name().equals(interfaceMethodName))
+                return tag;
+            tag++;
+        }
+        throw new IllegalStateException("Method with given name not found: " + interfaceMethodName);
+    }
+
     JMethod buildFactory(Map<String, JMethod> constructorMethods) throws JClassAlreadyExistsException {
         JDefinedClass factory = buildFactoryClass(constructorMethods);
 
         JFieldVar factoryField = environment.buildValueClassField(JMod.PRIVATE | JMod.STATIC | JMod.FINAL, factory, "FACTORY");
-        JAnnotationUse fieldAnnotationUse = factoryField.annotate(SuppressWarnings.class);
-        JAnnotationArrayMember paramArray = fieldAnnotationUse.paramArray("value");
-        paramArray.param("unchecked");
-        paramArray.param("rawtypes");
+        // Single raw instance is shared by all parameterizations of generic class
+        boolean isGeneric = !environment.getValueTypeParameters().isEmpty();
+        if (isGeneric) {
+            JAnnotationUse fieldAnnotationUse = factoryField.annotate(SuppressWarnings.class);
+            JAnnotationArrayMember paramArray = fieldAnnotationUse.paramArray("value");
+            paramArray.param("unchecked");
+            paramArray.param("rawtypes");
+        }
 
         factoryField.init(JExpr._new(factory));
         JMethod factoryMethod = environment.buildValueClassMethod(Source.toJMod(environment.factoryMethodAccessLevel()) | JMod.STATIC, "factory");
         Source.annotateNonnull(factoryMethod);
-        JAnnotationUse methodAnnotationUse = factoryMethod.annotate(SuppressWarnings.class);
-        methodAnnotationUse.param("value", "unchecked");
+        if (isGeneric) {
+            JAnnotationUse methodAnnotationUse = factoryMethod.annotate(SuppressWarnings.class);
+            methodAnnotationUse.param("value", "unchecked");
+        }
         for (JTypeVar visitorTypeParameter: environment.getValueTypeParameters()) {
             JTypeVar typeParameter = factoryMethod.generify(visitorTypeParameter.name());
             typeParameter.boundLike(visitorTypeParameter);
@@ -181,17 +265,103 @@ public class FinalValueClassModel {
         return factoryClass;
     }
 
-    private Map<String, JDefinedClass> buildCaseClasses(Serialization serialization) throws JClassAlreadyExistsException {
+    // Getters present in every case are stored in value class itself instead of case classes.
+    // Payload of Optional-shaped classes is stored in value class as well.
+    // Result maps case name and parameter name to value class field.
+    private Map<String, Map<String, JFieldVar>> buildCommonFields(Map<String, FieldConfiguration> getters, Map<String, Map<String, Caching>> lazyFields) {
+        Map<String, Map<String, JFieldVar>> commonFields = new TreeMap<>();
+        for (JMethod interfaceMethod: environment.visitorDefinition().methodDefinitions()) {
+            commonFields.put(interfaceMethod.name(), new TreeMap<String, JFieldVar>());
+        }
+        if (environment.caseClassesExtendValueClass()) {
+            AbstractJClass usedValueClassType = environment.wrappedValueClassTypeInsideValueClass();
+            VisitorDefinition.VisitorUsage usedVisitor = environment.visitor(usedValueClassType, usedValueClassType, types._RuntimeException);
+            for (FieldConfiguration getter: getters.values()) {
+                Map<String, String> paramNames = new TreeMap<>();
+                AbstractJType fieldType = null;
+                for (JMethod interfaceMethod: environment.visitorDefinition().methodDefinitions()) {
+                    MethodUsage usedInterfaceMethod = usedVisitor.findMethod(interfaceMethod.name());
+                    if (usedInterfaceMethod != null && usedInterfaceMethod.typeParams().length == 0) {
+                        Set<String> packedParamNames = packedParamNames(interfaceMethod, lazyFields);
+                        for (VariableDeclaration param: usedInterfaceMethod.params()) {
+                            if (getter.isFieldValue(interfaceMethod, param.name()) && !packedParamNames.contains(param.name())
+                                    && lazyFieldCaching(lazyFields, interfaceMethod.name(), param.name()) == null) {
+                                paramNames.put(interfaceMethod.name(), param.name());
+                                fieldType = param.type().declarable();
+                            }
+                        }
+                        VariableDeclaration param = usedInterfaceMethod.varParam();
+                        if (param != null && getter.isFieldValue(interfaceMethod, param.name())) {
+                            paramNames.put(interfaceMethod.name(), param.name());
+                            fieldType = param.type().elementType().declarable().array();
+                        }
+                    }
+                }
+                if (paramNames.size() == commonFields.size() && !environment.isValueClassFieldNameUsed(getter.name())) {
+                    JFieldVar field = environment.buildValueClassField(JMod.PRIVATE | JMod.FINAL, fieldType, getter.name());
+                    for (Map.Entry<String, String> entry: paramNames.entrySet()) {
+                        commonFields.get(entry.getKey()).put(entry.getValue(), field);
+                    }
+                }
+            }
+            if (environment.isOptionalShaped()) {
+                for (MethodUsage interfaceMethod: usedVisitor.methods()) {
+                    for (VariableDeclaration param: interfaceMethod.params()) {
+                        Map<String, JFieldVar> caseCommonFields = commonFields.get(interfaceMethod.name());
+                        if (!caseCommonFields.containsKey(param.name()) && !environment.isValueClassFieldNameUsed(param.name())
+                                && lazyFieldCaching(lazyFields, interfaceMethod.name(), param.name()) == null) {
+                            JFieldVar field = environment.buildValueClassField(JMod.PRIVATE | JMod.FINAL, param.type().declarable(), param.name());
+                            caseCommonFields.put(param.name(), field);
+                        }
+                    }
+                }
+            }
+        }
+        return commonFields;
+    }
+
+    // Small primitive arguments are packed only when there are at least two of them.
+    private Set<String> packedParamNames(JMethod interfaceMethod, Map<String, Map<String, Caching>> lazyFields) {
+        Set<String> result = new TreeSet<>();
+        if (environment.packFields()) {
+            for (JVar param: interfaceMethod.params()) {
+                if (PackedField.bitWidth(param.type()) > 0 && lazyFieldCaching(lazyFields, interfaceMethod.name(), param.name()) == null)
+                    result.add(param.name());
+            }
+        }
+        if (result.size() < 2)
+            result.clear();
+        return result;
+    }
+
+    @Nullable
+    private static Caching lazyFieldCaching(Map<String, Map<String, Caching>> lazyFields, String interfaceMethodName, String paramName) {
+        Map<String, Caching> caseLazyFields = lazyFields.get(interfaceMethodName);
+        return caseLazyFields == null ? null : caseLazyFields.get(paramName);
+    }
+
+    private static String lazyThunkName(String paramName) {
+        return paramName + "Thunk";
+    }
+
+    private static String lazyForceMethodName(String paramName) {
+        return "force" + Source.capitalize(paramName);
+    }
+
+    private Map<String, JDefinedClass> buildCaseClasses(Serialization serialization, Map<String, Map<String, JFieldVar>> commonFields, Map<String, Map<String, PackedField>> packedFields, Map<String, Map<String, Caching>> lazyFields) throws JClassAlreadyExistsException {
         Map<String, JDefinedClass> caseClasses = new TreeMap<>();
         for (JMethod interfaceMethod: environment.visitorDefinition().methodDefinitions()) {
-            JDefinedClass caseClass = buildCaseClass(interfaceMethod.name(), serialization);
+            Map<String, PackedField> casePackedFields = new TreeMap<>();
+            JDefinedClass caseClass = buildCaseClass(interfaceMethod, serialization, commonFields, casePackedFields, lazyFields);
+            packedFields.put(interfaceMethod.name(), casePackedFields);
             caseClasses.put(interfaceMethod.name(), caseClass);
         }
         return caseClasses;
     }
 
-    private JDefinedClass buildCaseClass(String interfaceMethodName, Serialization serialization) throws JClassAlreadyExistsException {
-        JDefinedClass caseClass = environment.buildValueClassInnerClass(JMod.PRIVATE | JMod.STATIC, Source.capitalize(interfaceMethodName) + "Case" + environment.acceptingInterfaceName(), EClassType.CLASS);
+    private JDefinedClass buildCaseClass(JMethod interfaceMethodDefinition, Serialization serialization, Map<String, Map<String, JFieldVar>> allCommonFields, Map<String, PackedField> packedFields, Map<String, Map<String, Caching>> lazyFields) throws JClassAlreadyExistsException {
+        String interfaceMethodName = interfaceMethodDefinition.name();
+        JDefinedClass caseClass = environment.buildValueClassInnerClass(JMod.PRIVATE | JMod.STATIC | JMod.FINAL, Source.capitalize(interfaceMethodName) + "Case" + environment.acceptingInterfaceName(), EClassType.CLASS);
         for (JTypeVar visitorTypeParameter: environment.getValueTypeParameters()) {
             JTypeVar typeParameter = caseClass.generify(visitorTypeParameter.name());
             typeParameter.boundLike(visitorTypeParameter);
@@ -213,6 +383,12 @@ public class FinalValueClassModel {
         }
         MethodUsage usedInterfaceMethod = interfaceMethod.narrow(methodArguments);
 
+        if (environment.caseClassesExtendValueClass()) {
+            AbstractJClass[] valueClassArguments = new AbstractJClass[environment.getValueTypeParameters().size()];
+            for (int i = 0; i < valueClassArguments.length; i++)
+                valueClassArguments[i] = caseClass.typeParams()[i];
+            caseClass._extends(environment.unwrappedValueClassType(valueClassArguments));
+        }
         caseClass._implements(usedAcceptingInterfaceType);
 
         if (serialization.isSerializable()) {
@@ -221,61 +397,196 @@ public class FinalValueClassModel {
         }
 
         JMethod constructor = caseClass.constructor(JMod.NONE);
+        JInvocation superConstructorInvocation = null;
+        JInvocation hashCodeInvocation = null;
+        if (environment.caseClassesExtendValueClass()) {
+            superConstructorInvocation = constructor.body().invoke("super");
+            superConstructorInvocation.arg(JExpr.lit(caseTag(interfaceMethodName)));
+            if (environment.hashCodeCaching() == Caching.PRECOMPUTE)
+                hashCodeInvocation = JExpr.invoke(hashCodeComputationMethodName());
+        }
+        Map<String, JFieldVar> commonFields = allCommonFields.get(interfaceMethodName);
+        Set<String> packedParamNames = packedParamNames(interfaceMethodDefinition, lazyFields);
+        List<JFieldVar> words = new ArrayList<>();
+        Map<String, IJExpression> wordValues = new TreeMap<>();
+        if (!packedParamNames.isEmpty()) {
+            List<VariableDeclaration> wordParams = new ArrayList<>();
+            int wordWidth = 0;
+            for (VariableDeclaration param: usedInterfaceMethod.params()) {
+                if (packedParamNames.contains(param.name())) {
+                    int width = PackedField.bitWidth(param.type());
+                    if (wordWidth + width > 64) {
+                        buildPackedWord(caseClass, interfaceMethodDefinition, wordParams, wordWidth, words, packedFields);
+                        wordParams.clear();
+                        wordWidth = 0;
+                    }
+                    wordParams.add(param);
+                    wordWidth += width;
+                }
+            }
+            buildPackedWord(caseClass, interfaceMethodDefinition, wordParams, wordWidth, words, packedFields);
+        }
+        Map<String, IJExpression> commonFieldArguments = new TreeMap<>();
+        for (Map<String, JFieldVar> caseCommonFields: allCommonFields.values()) {
+            for (JFieldVar commonField: caseCommonFields.values()) {
+                commonFieldArguments.put(commonField.name(), defaultValue(commonField.type()));
+            }
+        }
         for (VariableDeclaration param: usedInterfaceMethod.params()) {
             AbstractJType paramType = param.type().declarable();
-            JFieldVar field = caseClass.field(JMod.PRIVATE | JMod.FINAL, paramType, param.name());
+            Caching lazyCaching = lazyFieldCaching(lazyFields, interfaceMethodName, param.name());
+            JVar thunkArgument = null;
+            if (lazyCaching != null)
+                thunkArgument = constructor.param(types._Thunk.narrow(paramType.boxify().wildcard()), lazyThunkName(param.name()));
             JVar argument = constructor.param(paramType, param.name());
-            constructor.body().assign(JExpr._this().ref(field), argument);
+            JFieldVar commonField = commonFields.get(param.name());
+            PackedField packedField = packedFields.get(param.name());
+            if (commonField != null)
+                commonFieldArguments.put(commonField.name(), argument);
+            else if (packedField != null) {
+                String wordName = packedField.wordName();
+                IJExpression bits = packedField.bits(argument);
+                wordValues.put(wordName, wordValues.containsKey(wordName) ? wordValues.get(wordName).bor(bits) : bits);
+            } else if (thunkArgument != null) {
+                buildLazyField(caseClass, constructor, thunkArgument, argument, lazyCaching, Source.isNullable(param));
+            } else {
+                JFieldVar field = caseClass.field(JMod.FINAL, paramType, param.name());
+                constructor.body().assign(JExpr._this().ref(field), argument);
+            }
+            if (hashCodeInvocation != null)
+                hashCodeInvocation.arg(argument);
         }
         VariableDeclaration param = usedInterfaceMethod.varParam();
         if (param != null) {
             AbstractJType paramType = param.type().elementType().declarable();
-            JFieldVar field = caseClass.field(JMod.PRIVATE | JMod.FINAL, paramType.array(), param.name());
             JVar argument = constructor.varParam(paramType, param.name());
-            constructor.body().assign(JExpr._this().ref(field), argument);
-        }
-
-        JMethod acceptMethod = declareAcceptMethod(caseClass, usedValueClassType);
-        JInvocation invocation = JExpr.invoke(acceptMethod.params().get(0), usedInterfaceMethod.name());
-        for (AbstractJClass argument: methodArguments) {
-            invocation.narrow(argument);
+            JFieldVar commonField = commonFields.get(param.name());
+            if (commonField != null)
+                commonFieldArguments.put(commonField.name(), argument);
+            else {
+                JFieldVar field = caseClass.field(JMod.FINAL, paramType.array(), param.name());
+                constructor.body().assign(JExpr._this().ref(field), argument);
+            }
+            if (hashCodeInvocation != null)
+                hashCodeInvocation.arg(argument);
         }
-        for (VariableDeclaration param1: usedInterfaceMethod.params()) {
-            invocation.arg(JExpr._this().ref(param1.name()));
+        for (JFieldVar word: words) {
+            constructor.body().assign(JExpr._this().ref(word), wordValues.get(word.name()));
         }
-        VariableDeclaration param1 = usedInterfaceMethod.varParam();
-        if (param1 != null) {
-            invocation.arg(JExpr._this().ref(param1.name()));
+        if (superConstructorInvocation != null) {
+            for (IJExpression argument: commonFieldArguments.values()) {
+                superConstructorInvocation.arg(argument);
+            }
+            if (hashCodeInvocation != null)
+                superConstructorInvocation.arg(hashCodeInvocation);
         }
-        acceptMethod.body()._return(invocation);
 
         return caseClass;
     }
 
-    private JMethod declareAcceptMethod(JDefinedClass caseClass, AbstractJClass usedValueClassType) {
-        JMethod acceptMethod = caseClass.method(JMod.PUBLIC, types._void, environment.acceptMethodName());
-        acceptMethod.annotate(Override.class);
-        JTypeVar visitorResultTypeParameter = environment.visitorDefinition().getResultTypeParameter();
-        AbstractJClass resultType;
-        if (visitorResultTypeParameter == null)
-            resultType = types._Object;
+    // Thunk is released after evaluation, so that value field is valid whenever thunk field is null.
+    private void buildLazyField(JDefinedClass caseClass, JMethod constructor, JVar thunkArgument, JVar argument, Caching caching, boolean isNullable) {
+        JFieldVar thunkField = caseClass.field(JMod.PRIVATE | (caching == Caching.NONE ? JMod.FINAL : JMod.VOLATILE), thunkArgument.type(), thunkArgument.name());
+        JFieldVar field = caseClass.field(caching == Caching.NONE ? JMod.FINAL : JMod.NONE, argument.type(), argument.name());
+        constructor.body().assign(JExpr._this().ref(thunkField), thunkArgument);
+        constructor.body().assign(JExpr._this().ref(field), argument);
+
+        JMethod evaluateMethod = buildLazyFieldEvaluateMethod(caseClass, thunkField, field, isNullable);
+
+        JMethod forceMethod = caseClass.method(JMod.FINAL, field.type(), lazyForceMethodName(field.name()));
+        VariableNameSource nameSource = new VariableNameSource();
+        JVar thunk = forceMethod.body().decl(thunkField.type(), nameSource.get("thunk"), JExpr.refthis(thunkField));
+        if (caching == Caching.NONE) {
+            forceMethod.body()._return(JExpr.cond(thunk.eq(JExpr._null()), JExpr.refthis(field), JExpr.invoke(evaluateMethod).arg(thunk)));
+        } else if (caching == Caching.SIMPLE) {
+            JConditional _if = forceMethod.body()._if(thunk.eq(JExpr._null()));
+            _if._then()._return(JExpr.refthis(field));
+            JVar value = _if._else().decl(field.type(), nameSource.get("value"), JExpr.invoke(evaluateMethod).arg(thunk));
+            _if._else().assign(JExpr.refthis(field), value);
+            _if._else().assign(JExpr.refthis(thunkField), JExpr._null());
+            _if._else()._return(value);
+        } else if (caching == Caching.SYNCRONIZED) {
+            JConditional _if1 = forceMethod.body()._if(thunk.ne(JExpr._null()));
+            JSynchronizedBlock synchronizedBlock = _if1._then().synchronizedBlock(caseObjectLock(caseClass));
+            synchronizedBlock.body().assign(thunk, JExpr.refthis(thunkField));
+            JConditional _if2 = synchronizedBlock.body()._if(thunk.ne(JExpr._null()));
+            _if2._then().assign(JExpr.refthis(field), JExpr.invoke(evaluateMethod).arg(thunk));
+            _if2._then().assign(JExpr.refthis(thunkField), JExpr._null());
+            forceMethod.body()._return(JExpr.refthis(field));
+        } else
+            throw new IllegalStateException("Unsupported lazy field caching: " + caching);
+    }
+
+    // Evaluating thread is remembered to report thunk that forces its own field instead of stack overflow.
+    // Field is only compared with current thread, so concurrent evaluations with SIMPLE caching are still allowed
+    private JMethod buildLazyFieldEvaluateMethod(JDefinedClass caseClass, JFieldVar thunkField, JFieldVar field, boolean isNullable) {
+        JFieldVar threadField = caseClass.field(JMod.PRIVATE, types._Thread, field.name() + "EvaluatingThread");
+        JMethod method = caseClass.method(JMod.PRIVATE, field.type(), "evaluate" + Source.capitalize(field.name()));
+        VariableNameSource nameSource = new VariableNameSource();
+        JVar thunk = method.param(thunkField.type(), nameSource.get("thunk"));
+        JVar thread = method.body().decl(types._Thread, nameSource.get("thread"), types._Thread.staticInvoke("currentThread"));
+        JConditional _if = method.body()._if(JExpr.refthis(threadField).eq(thread));
+        JInvocation illegalStateExceptionConstruction = JExpr._new(types._IllegalStateException);
+        illegalStateExceptionConstruction.arg(JExpr.lit("Lazy field is accessed during its own evaluation: '" + field.name() + "' field in class " + environment.valueClassQualifiedName()));
+        _if._then()._throw(illegalStateExceptionConstruction);
+        method.body().assign(JExpr.refthis(threadField), thread);
+        boolean isChecked = !isNullable || field.type().isPrimitive();
+        JVar value = method.body().decl(isChecked ? field.type().boxify() : field.type(), nameSource.get("value"));
+        JTryBlock _try = method.body()._try();
+        _try.body().assign(value, thunk.invoke("get"));
+        _try._finally().assign(JExpr.refthis(threadField), JExpr._null());
+        if (isChecked) {
+            JConditional nullCheck = method.body()._if(value.eq(JExpr._null()));
+            JInvocation nullPointerExceptionConstruction = JExpr._new(types._NullPointerException);
+            nullPointerExceptionConstruction.arg(JExpr.lit("Lazy field shouldn't be null: '" + field.name() + "' thunk returned null in class " + environment.valueClassQualifiedName()));
+            nullCheck._then()._throw(nullPointerExceptionConstruction);
+        }
+        method.body()._return(value);
+        return method;
+    }
+
+    private IJExpression caseObjectLock(JDefinedClass caseClass) {
+        if (!caseObjectsAreValues())
+            return JExpr._this();
         else {
-            JTypeVar resultTypeVar = acceptMethod.generify(visitorResultTypeParameter.name());
-            resultTypeVar.boundLike(visitorResultTypeParameter);
-            resultType = resultTypeVar;
-        }
-        acceptMethod.type(resultType);
-        JTypeVar visitorExceptionTypeParameter = environment.visitorDefinition().getExceptionTypeParameter();
-        JTypeVar exceptionType = null;
-        if (visitorExceptionTypeParameter != null) {
-            JTypeVar exceptionTypeParameter = acceptMethod.generify(visitorExceptionTypeParameter.name());
-            exceptionTypeParameter.boundLike(visitorExceptionTypeParameter);
-            exceptionType = exceptionTypeParameter;
-            acceptMethod._throws(exceptionType);
-        }
-        VisitorDefinition.VisitorUsage usedVisitorType = environment.visitor(usedValueClassType, resultType, exceptionType);
-        acceptMethod.param(usedVisitorType.getVisitorType(), "visitor");
-        return acceptMethod;
+            JFieldVar lockField = caseObjectLocks.get(caseClass.name());
+            if (lockField == null) {
+                String name = "lock";
+                while (caseClass.fields().containsKey(name))
+                    name = "_" + name;
+                lockField = caseClass.field(JMod.PRIVATE | JMod.FINAL, types._Object, name, JExpr.newArray(types._Object, 0));
+                caseObjectLocks.put(caseClass.name(), lockField);
+            }
+            return JExpr.refthis(lockField);
+        }
+    }
+
+    private void buildPackedWord(JDefinedClass caseClass, JMethod interfaceMethod, List<VariableDeclaration> wordParams, int wordWidth, List<JFieldVar> words, Map<String, PackedField> packedFields) {
+        Set<String> paramNames = new TreeSet<>();
+        for (JVar param: interfaceMethod.params()) {
+            paramNames.add(param.name());
+        }
+        String name = "packed" + words.size();
+        while (paramNames.contains(name))
+            name = "_" + name;
+        JFieldVar word = caseClass.field(JMod.FINAL, wordWidth <= 32 ? types._int : types._long, name);
+        words.add(word);
+        int offset = 0;
+        for (VariableDeclaration param: wordParams) {
+            packedFields.put(param.name(), new PackedField(word, offset, param.type()));
+            offset += PackedField.bitWidth(param.type());
+        }
+    }
+
+    private static IJExpression defaultValue(AbstractJType type) {
+        if (type.isReference())
+            return JExpr._null();
+        else if (type.name().equals("boolean"))
+            return JExpr.FALSE;
+        else if (type.name().equals("int"))
+            return JExpr.lit(0);
+        else
+            return JExpr.cast(type, JExpr.lit(0));
     }
 
     private JFieldVar buildHashCodeCachedValueField(Serialization serialization) {
@@ -286,8 +597,10 @@ public class FinalValueClassModel {
             boolean precomputes = environment.hashCodeCaching() == Caching.PRECOMPUTE;
             int mods = JMod.PRIVATE;
             mods = !isSerializable ? mods : mods | JMod.TRANSIENT;
-            if (!precomputes)
+            if (!precomputes) {
+                mods = environment.hashCodeCaching() != Caching.ATOMIC ? mods : mods | JMod.VOLATILE;
                 return environment.buildValueClassField(mods, types._int, "hashCodeCachedValue", JExpr.lit(0));
+            }
             else {
                 mods = isSerializable ? mods : mods | JMod.FINAL;
                 return environment.buildValueClassField(mods, types._int, "hashCodeCachedValue");
@@ -296,30 +609,517 @@ public class FinalValueClassModel {
     }
 
 
+    private Map<String, CachedValue> buildCachedValueFields(Serialization serialization, Map<String, CachedMethodConfiguration> cachedMethods) {
+        Map<String, CachedValue> result = new TreeMap<>();
+        for (CachedMethodConfiguration cachedMethod: cachedMethods.values()) {
+            AbstractJType type = cachedMethod.type();
+            String fieldName = cachedMethod.name() + "CachedValue";
+            int mods = JMod.PRIVATE;
+            JFieldVar valueField = null;
+            JFieldVar flagField = null;
+            if (cachedMethod.caching() == Caching.SIMPLE) {
+                mods = !serialization.isSerializable() ? mods : mods | JMod.TRANSIENT;
+                // Reads and writes of long and double values are atomic only for volatile fields
+                if (type.name().equals("long") || type.name().equals("double"))
+                    mods = mods | JMod.VOLATILE;
+                valueField = environment.buildValueClassField(mods, type, fieldName);
+            } else if (cachedMethod.caching() == Caching.SYNCRONIZED) {
+                mods = !serialization.isSerializable() ? mods : mods | JMod.TRANSIENT;
+                valueField = environment.buildValueClassField(mods, type, fieldName);
+                flagField = environment.buildValueClassField(mods | JMod.VOLATILE, types._boolean, cachedMethod.name() + "IsCached");
+            } else if (cachedMethod.caching() == Caching.PRECOMPUTE) {
+                // Field can't be final, since it's assigned after wrapper constructor completes,
+                // volatile field makes value visible to threads that get value without synchronization
+                valueField = environment.buildValueClassField(mods | JMod.VOLATILE, type, fieldName);
+            }
+            result.put(cachedMethod.name(), new CachedValue(cachedMethod, valueField, flagField));
+        }
+        return result;
+    }
+
+    private JFieldVar buildInternTableField() {
+        AbstractJClass internTableType = types._InternTable.narrow(types._Object);
+        JInvocation initializer;
+        if (environment.interning() == Interning.WEAK)
+            initializer = types._InternTable.staticInvoke("weak");
+        else if (environment.interning() == Interning.BOUNDED) {
+            initializer = types._InternTable.staticInvoke("bounded");
+            initializer.arg(JExpr.lit(environment.internTableSize()));
+        } else
+            throw new IllegalStateException("Unsupported interning: " + environment.interning());
+        return environment.buildValueClassField(JMod.PRIVATE | JMod.STATIC | JMod.FINAL, internTableType, "INTERN_TABLE", initializer);
+    }
+
+    // Tables hold field values of different types for generic classes, so values are stored as objects
+    private Map<String, Map<String, JFieldVar>> buildFieldInternTableFields(Map<String, Map<String, FieldInterningConfiguration>> internedFields) {
+        Map<String, Map<String, JFieldVar>> result = new TreeMap<>();
+        for (Map.Entry<String, Map<String, FieldInterningConfiguration>> caseEntry: internedFields.entrySet()) {
+            Map<String, JFieldVar> caseTables = new TreeMap<>();
+            for (Map.Entry<String, FieldInterningConfiguration> entry: caseEntry.getValue().entrySet()) {
+                FieldInterningConfiguration configuration = entry.getValue();
+                JInvocation initializer;
+                if (configuration.interning() == Interning.WEAK)
+                    initializer = types._InternTable.staticInvoke("weak");
+                else if (configuration.interning() == Interning.BOUNDED) {
+                    initializer = types._InternTable.staticInvoke("bounded");
+                    initializer.arg(JExpr.lit(configuration.tableSize()));
+                } else
+                    throw new IllegalStateException("Unsupported interning: " + configuration.interning());
+                String name = caseEntry.getKey().toUpperCase(Locale.US) + "_" + entry.getKey().toUpperCase(Locale.US) + "_INTERN_TABLE";
+                JFieldVar field = environment.buildValueClassField(JMod.PRIVATE | JMod.STATIC | JMod.FINAL, types._InternTable.narrow(types._Object), name, initializer);
+                caseTables.put(entry.getKey(), field);
+            }
+            result.put(caseEntry.getKey(), caseTables);
+        }
+        return result;
+    }
+
     class MethodBuilder {
         private final Map<String, JDefinedClass> caseClasses;
+        private final Map<String, Map<String, JFieldVar>> commonFields;
+        private final Map<String, Map<String, PackedField>> packedFields;
+        private final Map<String, Map<String, Caching>> lazyFields;
+        private final Map<String, Map<String, FieldEqualityConfiguration>> fieldEqualities;
         private final JFieldVar acceptorField;
+        private final JFieldVar lockField;
+        private final JFieldVar tagField;
         private final JFieldVar hashCodeCachedValueField;
+        private final JFieldVar internTableField;
+        private final Map<String, Map<String, JFieldVar>> fieldInternTables;
+        private final Map<String, CachedValue> cachedValues;
+        private final Map<String, JFieldVar> singletonInstanceFields = new TreeMap<>();
+        private JMethod precomputeCachedValuesMethod = null;
 
-        private MethodBuilder(Map<String, JDefinedClass> caseClasses, JFieldVar acceptorField, JFieldVar hashCodeCachedValueField) {
+        private MethodBuilder(Map<String, JDefinedClass> caseClasses, Map<String, Map<String, JFieldVar>> commonFields, Map<String, Map<String, PackedField>> packedFields, Map<String, Map<String, Caching>> lazyFields, Map<String, Map<String, FieldEqualityConfiguration>> fieldEqualities, JFieldVar acceptorField, JFieldVar lockField, JFieldVar tagField, JFieldVar hashCodeCachedValueField, JFieldVar internTableField, Map<String, Map<String, JFieldVar>> fieldInternTables, Map<String, CachedValue> cachedValues) {
             this.caseClasses = caseClasses;
+            this.commonFields = commonFields;
+            this.packedFields = packedFields;
+            this.lazyFields = lazyFields;
+            this.fieldEqualities = fieldEqualities;
             this.acceptorField = acceptorField;
+            this.lockField = lockField;
+            this.tagField = tagField;
             this.hashCodeCachedValueField = hashCodeCachedValueField;
+            this.internTableField = internTableField;
+            this.fieldInternTables = fieldInternTables;
+            this.cachedValues = cachedValues;
+        }
+
+        // Value is case object itself unless it's created with copy constructor
+        private IJExpression acceptorRef(IJExpression value) {
+            if (acceptorField == null)
+                return value;
+            else if (!environment.caseClassesExtendValueClass())
+                return value.ref(acceptorField);
+            else
+                return JOp.cond(value.ref(acceptorField).eq(JExpr._null()), value, value.ref(acceptorField));
+        }
+
+        private IJExpression lock() {
+            return lockField != null ? JExpr.refthis(lockField) : JExpr.refthis(acceptorField);
+        }
+
+        private AbstractJClass usedCaseClassTypeInsideValueClass(String interfaceMethodName) {
+            JDefinedClass caseClass = caseClasses.get(interfaceMethodName);
+            List<? extends AbstractJClass> valueClassTypeArguments = environment.unwrappedValueClassTypeInsideValueClass().getTypeParameters();
+            AbstractJClass[] typeArguments = new AbstractJClass[caseClass.typeParams().length];
+            for (int i = 0; i < typeArguments.length; i++) {
+                typeArguments[i] = i < valueClassTypeArguments.size() ? valueClassTypeArguments.get(i) : types.createWildcard();
+            }
+            return Source.narrowType(caseClass, typeArguments);
+        }
+
+        private Collection<JFieldVar> sortedCommonFields() {
+            Map<String, JFieldVar> result = new TreeMap<>();
+            for (Map<String, JFieldVar> caseCommonFields: commonFields.values()) {
+                for (JFieldVar commonField: caseCommonFields.values()) {
+                    result.put(commonField.name(), commonField);
+                }
+            }
+            return result.values();
+        }
+
+        private boolean isCommonField(String name) {
+            for (JFieldVar commonField: sortedCommonFields()) {
+                if (commonField.name().equals(name))
+                    return true;
+            }
+            return false;
+        }
+
+        private IJExpression caseClassFieldRef(String interfaceMethodName, String paramName) {
+            JFieldVar commonField = commonFields.get(interfaceMethodName).get(paramName);
+            PackedField packedField = packedFields.get(interfaceMethodName).get(paramName);
+            if (commonField != null)
+                return JExpr._super().ref(commonField);
+            else if (packedField != null)
+                return packedField.read(JExpr._this());
+            else if (isLazyField(interfaceMethodName, paramName))
+                return JExpr.invoke(lazyForceMethodName(paramName));
+            else
+                return JExpr.refthis(caseClasses.get(interfaceMethodName).fields().get(paramName));
+        }
+
+        private AbstractJType caseClassFieldType(String interfaceMethodName, String paramName) {
+            JFieldVar commonField = commonFields.get(interfaceMethodName).get(paramName);
+            PackedField packedField = packedFields.get(interfaceMethodName).get(paramName);
+            if (commonField != null)
+                return commonField.type();
+            else if (packedField != null)
+                return packedField.type();
+            else
+                return caseClasses.get(interfaceMethodName).fields().get(paramName).type();
+        }
+
+        private AbstractJClass wildcardCaseClassType(String interfaceMethodName) {
+            JDefinedClass caseClass = caseClasses.get(interfaceMethodName);
+            AbstractJClass[] typeArguments = new AbstractJClass[caseClass.typeParams().length];
+            for (int i = 0; i < typeArguments.length; i++) {
+                typeArguments[i] = types.createWildcard();
+            }
+            return Source.narrowType(caseClass, typeArguments);
+        }
+
+        private List<JVar> caseParams(JMethod interfaceMethod) {
+            List<JVar> result = new ArrayList<>(interfaceMethod.params());
+            if (interfaceMethod.hasVarArgs())
+                result.add(interfaceMethod.varParam());
+            return result;
+        }
+
+        private FieldEquality fieldEquality(String interfaceMethodName, String paramName) {
+            FieldEqualityConfiguration configuration = fieldEqualityConfiguration(interfaceMethodName, paramName);
+            return configuration == null ? FieldEquality.STRUCTURAL : configuration.equality();
+        }
+
+        private int fieldEqualityPriority(String interfaceMethodName, String paramName) {
+            FieldEqualityConfiguration configuration = fieldEqualityConfiguration(interfaceMethodName, paramName);
+            return configuration == null ? 0 : configuration.priority();
+        }
+
+        @Nullable
+        private FieldEqualityConfiguration fieldEqualityConfiguration(String interfaceMethodName, String paramName) {
+            Map<String, FieldEqualityConfiguration> caseFieldEqualities = fieldEqualities.get(interfaceMethodName);
+            return caseFieldEqualities == null ? null : caseFieldEqualities.get(paramName);
+        }
+
+        // Parameters that take part in equals, hashCode and compareTo methods
+        private List<JVar> comparedCaseParams(JMethod interfaceMethod) {
+            List<JVar> result = new ArrayList<>();
+            for (JVar param: caseParams(interfaceMethod)) {
+                if (fieldEquality(interfaceMethod.name(), param.name()) != FieldEquality.EXCLUDED)
+                    result.add(param);
+            }
+            return result;
+        }
+
+        // Parameters in the order of comparison in equals method:
+        // fields with higher priority go first, then cheaper fields go first
+        private List<JVar> equalsOrderedCaseParams(final JMethod interfaceMethod) {
+            List<JVar> result = comparedCaseParams(interfaceMethod);
+            Collections.sort(result, new Comparator<JVar>() {
+                @Override
+                public int compare(JVar param1, JVar param2) {
+                    int priority1 = fieldEqualityPriority(interfaceMethod.name(), param1.name());
+                    int priority2 = fieldEqualityPriority(interfaceMethod.name(), param2.name());
+                    if (priority1 != priority2)
+                        return priority1 > priority2 ? -1 : 1;
+                    else
+                        return equalityCost(interfaceMethod.name(), param1) - equalityCost(interfaceMethod.name(), param2);
+                }
+            });
+            return result;
+        }
+
+        private int equalityCost(String interfaceMethodName, JVar param) {
+            AbstractJType type = caseClassFieldType(interfaceMethodName, param.name());
+            if (type.isPrimitive() || fieldEquality(interfaceMethodName, param.name()) == FieldEquality.IDENTITY)
+                return 0;
+            else if (type.isArray())
+                return 3;
+            else if (types.isCheapToCompare(type))
+                return 1;
+            else
+                return 2;
+        }
+
+        private boolean hasCaseClassFields(JMethod interfaceMethod) {
+            for (JVar param: caseParams(interfaceMethod)) {
+                if (commonFields.get(interfaceMethod.name()).get(param.name()) == null)
+                    return true;
+            }
+            return false;
+        }
+
+        private IJExpression caseFieldRefInsideValueClass(String interfaceMethodName, String paramName, IJExpression acceptor) {
+            return caseFieldRefInsideValueClass(interfaceMethodName, paramName, JExpr._this(), acceptor);
+        }
+
+        private IJExpression caseFieldRefInsideValueClass(String interfaceMethodName, String paramName, IJExpression value, IJExpression acceptor) {
+            JFieldVar commonField = commonFields.get(interfaceMethodName).get(paramName);
+            PackedField packedField = packedFields.get(interfaceMethodName).get(paramName);
+            if (commonField != null)
+                return value.ref(commonField);
+            else if (packedField != null)
+                return packedField.read(acceptor);
+            else if (isLazyField(interfaceMethodName, paramName))
+                return acceptor.invoke(lazyForceMethodName(paramName));
+            else
+                return acceptor.ref(paramName);
+        }
+
+        // Arrays are copied when they are stored or returned, so that stored arrays are never modified
+        private IJExpression copiedArray(AbstractJType type, IJExpression value) {
+            if (!environment.copyArrays() || !type.isArray())
+                return value;
+            else {
+                JInvocation invocation = types._ArrayCopies.staticInvoke("copyOf");
+                invocation.arg(value);
+                return invocation;
+            }
+        }
+
+        private IJExpression canonicalValue(String interfaceMethodName, String paramName, AbstractJType type, IJExpression value) {
+            Map<String, JFieldVar> caseTables = fieldInternTables.get(interfaceMethodName);
+            JFieldVar table = caseTables == null ? null : caseTables.get(paramName);
+            if (table == null)
+                return value;
+            else {
+                JInvocation invocation = table.invoke("intern");
+                invocation.arg(value);
+                return JExpr.cond(value.eq(JExpr._null()), JExpr._null(), JExpr.cast(type, invocation));
+            }
+        }
+
+        private boolean hasCanonicalValues(String interfaceMethodName) {
+            return fieldInternTables.containsKey(interfaceMethodName);
+        }
+
+        private boolean isLazyField(String interfaceMethodName, String paramName) {
+            return lazyFieldCaching(lazyFields, interfaceMethodName, paramName) != null;
+        }
+
+        private IJExpression caseValue(AbstractJClass unwrappedUsedValueClassType, JInvocation caseClassConstructorInvocation, String interfaceMethodName) {
+            if (environment.caseClassesExtendValueClass())
+                return caseClassConstructorInvocation;
+            else {
+                JInvocation constructorInvocation = JExpr._new(unwrappedUsedValueClassType);
+                constructorInvocation.arg(caseClassConstructorInvocation);
+                constructorInvocation.arg(JExpr.lit(caseTag(interfaceMethodName)));
+                return constructorInvocation;
+            }
+        }
+
+        private IJExpression unexpectedTagException() {
+            JInvocation exceptionInvocation = JExpr._new(types._IllegalStateException);
+            exceptionInvocation.arg(JExpr.lit("Unexpected tag: ").plus(JExpr.refthis(tagField)));
+            return exceptionInvocation;
+        }
+
+        private IJExpression wrappedValue(AbstractJClass usedValueClassType, IJExpression value) {
+            IJExpression result = environment.wrappedValue(usedValueClassType, value);
+            if (!hasPrecomputedCachedValues())
+                return result;
+            else {
+                if (precomputeCachedValuesMethod == null)
+                    precomputeCachedValuesMethod = buildPrecomputeCachedValuesMethod();
+                JInvocation invocation = JExpr.invoke(precomputeCachedValuesMethod);
+                invocation.arg(result);
+                return invocation;
+            }
         }
 
-        private MethodBuilder(Map<String, JDefinedClass> caseClasses, JFieldVar acceptorField) {
-            this(caseClasses, acceptorField, null);
+        private boolean hasPrecomputedCachedValues() {
+            for (CachedValue cachedValue: cachedValues.values()) {
+                if (cachedValue.configuration().caching() == Caching.PRECOMPUTE)
+                    return true;
+            }
+            return false;
+        }
+
+        private JMethod buildPrecomputeCachedValuesMethod() {
+            JMethod method = environment.buildValueClassMethod(JMod.PRIVATE | JMod.STATIC, "precomputeCachedValues");
+            for (JTypeVar visitorTypeParameter: environment.getValueTypeParameters()) {
+                JTypeVar typeParameter = method.generify(visitorTypeParameter.name());
+                typeParameter.boundLike(visitorTypeParameter);
+            }
+            AbstractJClass usedValueClassType = environment.wrappedValueClassType(method.typeParams());
+            AbstractJClass unwrappedUsedValueClassType = environment.unwrappedValueClassType(method.typeParams());
+            method.type(usedValueClassType);
+            VariableNameSource nameSource = new VariableNameSource();
+            JVar value = method.param(usedValueClassType, nameSource.get("value"));
+            // Private fields are accessible through generated class type only
+            JVar implementation = method.body().decl(unwrappedUsedValueClassType, nameSource.get("implementation"), value);
+            for (CachedValue cachedValue: cachedValues.values()) {
+                if (cachedValue.configuration().caching() == Caching.PRECOMPUTE)
+                    method.body().assign(implementation.ref(cachedValue.valueField()), value.invoke(cachedValue.configuration().computationMethodName()));
+            }
+            method.body()._return(value);
+            return method;
+        }
+
+        // Case classes form closed set of final classes,
+        // so case class method is selected by switch on tag and cast instead of interface dispatch
+        private JMethod buildCaseDispatchMethod(String methodName, AbstractJType resultType) {
+            AbstractJClass[] typeParams = new AbstractJClass[environment.getValueTypeParameters().size()];
+            for (int i = 0; i < typeParams.length; i++)
+                typeParams[i] = types.createWildcard();
+            JMethod method = environment.buildValueClassMethod(JMod.PRIVATE | JMod.STATIC, methodName);
+            method.type(resultType);
+            VariableNameSource nameSource = new VariableNameSource();
+            AbstractJClass acceptorType = environment.caseClassesExtendValueClass() ? environment.unwrappedValueClassType(typeParams) : environment.acceptingInterfaceType(typeParams);
+            JVar acceptor = method.param(acceptorType, nameSource.get("acceptor"));
+            JVar tag = method.param(types._int, nameSource.get("tag"));
+            JSwitch _switch = method.body()._switch(tag);
+            for (JMethod interfaceMethod: environment.visitorDefinition().methodDefinitions()) {
+                JBlock caseBody = _switch._case(JExpr.lit(caseTag(interfaceMethod.name()))).body();
+                AbstractJClass caseClassType = wildcardCaseClassType(interfaceMethod.name());
+                caseBody._return(JExpr.cast(caseClassType, acceptor).invoke(methodName));
+            }
+            JInvocation exceptionInvocation = JExpr._new(types._IllegalStateException);
+            exceptionInvocation.arg(JExpr.lit("Unexpected tag: ").plus(tag));
+            _switch._default().body()._throw(exceptionInvocation);
+            return method;
+        }
+
+        private IJExpression caseDispatchInvocation(String methodName, IJExpression acceptor, IJExpression tag) {
+            JInvocation invocation = JExpr.invoke(methodName);
+            invocation.arg(acceptor);
+            invocation.arg(tag);
+            return invocation;
+        }
+
+        private IJExpression internedValue(AbstractJClass usedValueClassType, IJExpression value) {
+            if (internTableField == null)
+                return value;
+            else {
+                JInvocation invocation = internTableField.invoke("intern");
+                invocation.arg(value);
+                return JExpr.cast(usedValueClassType, invocation);
+            }
+        }
+
+        void buildTagMethods() throws JClassAlreadyExistsException {
+            int mods = Source.toJMod(environment.acceptMethodAccessLevel());
+            if (!environment.isValueClassMethodNameUsed("tag")) {
+                JMethod tagMethod = environment.buildValueClassMethod(mods | JMod.FINAL, "tag");
+                tagMethod.type(types._int);
+                if (isError)
+                    tagMethod.body()._throw(JExpr._new(types._UnsupportedOperationException));
+                else
+                    tagMethod.body()._return(JExpr.refthis(tagField));
+            }
+            // Nested class can't have the same name as enclosing class
+            if (!environment.isValueClassMethodNameUsed("kind") && !environment.isValueClassNestedClassNameUsed("Kind")) {
+                JDefinedClass kindEnum = environment.buildValueClassInnerClass(mods, "Kind", EClassType.ENUM);
+                for (JMethod interfaceMethod: environment.visitorDefinition().methodDefinitions()) {
+                    kindEnum.enumConstant(interfaceMethod.name().toUpperCase(Locale.US));
+                }
+                JMethod kindMethod = environment.buildValueClassMethod(mods | JMod.FINAL, "kind");
+                kindMethod.type(kindEnum);
+                Source.annotateNonnull(kindMethod);
+                if (isError)
+                    kindMethod.body()._throw(JExpr._new(types._UnsupportedOperationException));
+                else {
+                    JSwitch _switch = kindMethod.body()._switch(JExpr.refthis(tagField));
+                    for (JMethod interfaceMethod: environment.visitorDefinition().methodDefinitions()) {
+                        JBlock caseBody = _switch._case(JExpr.lit(caseTag(interfaceMethod.name()))).body();
+                        caseBody._return(kindEnum.staticRef(interfaceMethod.name().toUpperCase(Locale.US)));
+                    }
+                    _switch._default().body()._throw(unexpectedTagException());
+                }
+            }
+        }
+
+        void buildFingerprintMethods() {
+            JMethod hashIntoMethod = environment.buildValueClassMethod(JMod.PUBLIC | JMod.FINAL, "hashInto");
+            hashIntoMethod.annotate(Override.class);
+            VariableNameSource nameSource = new VariableNameSource();
+            JVar sink = hashIntoMethod.param(types._HashSink, nameSource.get("sink"));
+            if (isError) {
+                hashIntoMethod.body()._throw(JExpr._new(types._UnsupportedOperationException));
+            } else {
+                // Case is identified by name, so that fingerprints don't change when cases are reordered
+                String hashIntoMethodName = Source.decapitalize(environment.valueClassName()) + "HashInto";
+                JSwitch _switch = hashIntoMethod.body()._switch(JExpr.refthis(tagField));
+                for (JMethod interfaceMethod: environment.visitorDefinition().methodDefinitions()) {
+                    JBlock caseBody = _switch._case(JExpr.lit(caseTag(interfaceMethod.name()))).body();
+                    caseBody.invoke(sink, "putString").arg(JExpr.lit(interfaceMethod.name()));
+                    if (!environment.isEnumLike()) {
+                        AbstractJClass caseClassType = usedCaseClassTypeInsideValueClass(interfaceMethod.name());
+                        caseBody.invoke(JExpr.cast(caseClassType, acceptorRef(JExpr._this())), hashIntoMethodName).arg(sink);
+
+                        JDefinedClass caseClass = caseClasses.get(interfaceMethod.name());
+                        JMethod caseHashIntoMethod = caseClass.method(JMod.FINAL, types._void, hashIntoMethodName);
+                        JVar caseSink = caseHashIntoMethod.param(types._HashSink, "sink");
+                        // Fields excluded from equals are excluded from fingerprint,
+                        // so that equal values have equal fingerprints
+                        for (JVar param: comparedCaseParams(interfaceMethod)) {
+                            AbstractJType type = caseClassFieldType(interfaceMethod.name(), param.name());
+                            IJExpression value = caseClassFieldRef(interfaceMethod.name(), param.name());
+                            if (type.isPrimitive())
+                                caseHashIntoMethod.body().invoke(caseSink, "put" + Source.capitalize(type.name())).arg(value);
+                            else
+                                caseHashIntoMethod.body().add(types._HashSinks.staticInvoke("putObject").arg(caseSink).arg(value));
+                        }
+                    }
+                    caseBody._break();
+                }
+                _switch._default().body()._throw(unexpectedTagException());
+            }
+
+            JMethod fingerprintMethod = environment.buildValueClassMethod(JMod.PUBLIC | JMod.FINAL, "fingerprint");
+            fingerprintMethod.type(types._long);
+            if (isError)
+                fingerprintMethod.body()._throw(JExpr._new(types._UnsupportedOperationException));
+            else
+                fingerprintMethod.body()._return(types._Fingerprint.staticInvoke("of").arg(JExpr._this()));
+        }
+
+        void buildInternTableMethod() {
+            if (environment.interning().enabled()) {
+                JMethod method = environment.buildValueClassMethod(Source.toJMod(environment.factoryMethodAccessLevel()) | JMod.STATIC, "internTable");
+                method.type(types._InternTable.narrow(types.createWildcard()));
+                Source.annotateNonnull(method);
+                if (isError)
+                    method.body()._throw(JExpr._new(types._UnsupportedOperationException));
+                else
+                    method.body()._return(internTableField);
+            }
         }
 
         void buildPrivateConstructor() {
-            if (!isError) {
+            if (!isError && environment.isEnumLike()) {
+                JMethod constructor = environment.buildValueClassConstructor(JMod.PRIVATE);
+                JVar tagParam = constructor.param(tagField.type(), tagField.name());
+                constructor.body().assign(JExpr.refthis(tagField.name()), tagParam);
+            } else if (!isError && environment.caseClassesExtendValueClass()) {
+                JMethod constructor = environment.buildValueClassConstructor(JMod.PRIVATE);
+                JVar tagParam = constructor.param(tagField.type(), tagField.name());
+                List<JVar> commonFieldParams = new ArrayList<>();
+                for (JFieldVar commonField: sortedCommonFields()) {
+                    commonFieldParams.add(constructor.param(commonField.type(), commonField.name()));
+                }
+                if (environment.hashCodeCaching() == Caching.PRECOMPUTE) {
+                    JVar hashCodeParam = constructor.param(types._int, "hashCode");
+                    constructor.body().assign(JExpr.refthis(hashCodeCachedValueField), hashCodeParam);
+                }
+                if (acceptorField != null)
+                    constructor.body().assign(JExpr.refthis(acceptorField), JExpr._null());
+                constructor.body().assign(JExpr.refthis(tagField.name()), tagParam);
+                for (JVar commonFieldParam: commonFieldParams) {
+                    constructor.body().assign(JExpr.refthis(commonFieldParam.name()), commonFieldParam);
+                }
+            } else if (!isError) {
                 JMethod constructor = environment.buildValueClassConstructor(JMod.PRIVATE);
                 JVar acceptorParam = constructor.param(acceptorField.type(), acceptorField.name());
+                JVar tagParam = constructor.param(tagField.type(), tagField.name());
                 if (environment.hashCodeCaching() == Caching.PRECOMPUTE) {
-                    JInvocation invocation = acceptorParam.invoke(hashCodeAcceptorMethodName());
+                    IJExpression invocation = caseDispatchInvocation(hashCodeAcceptorMethodName(), acceptorParam, tagParam);
                     constructor.body().assign(JExpr.refthis(hashCodeCachedValueField), invocation);
                 }
                 constructor.body().assign(JExpr.refthis(acceptorField.name()), acceptorParam);
+                constructor.body().assign(JExpr.refthis(tagField.name()), tagParam);
             }
         }
 
@@ -340,7 +1140,18 @@ public class FinalValueClassModel {
 
                 if (environment.hashCodeCaching().enabled())
                     constructor.body().assign(JExpr.refthis(hashCodeCachedValueField), param.ref(hashCodeCachedValueField));
-                constructor.body().assign(JExpr.refthis(acceptorField), param.ref(acceptorField));
+                if (acceptorField != null)
+                    constructor.body().assign(JExpr.refthis(acceptorField), acceptorRef(param));
+                constructor.body().assign(JExpr.refthis(tagField), param.ref(tagField));
+                for (JFieldVar commonField: sortedCommonFields()) {
+                    constructor.body().assign(JExpr.refthis(commonField), param.ref(commonField));
+                }
+                // Wrapper methods can't be called before wrapper constructor completes,
+                // values are computed when new wrapper instance is created, see wrappedValue method
+                for (CachedValue cachedValue: cachedValues.values()) {
+                    if (cachedValue.configuration().caching() == Caching.PRECOMPUTE)
+                        constructor.body().assign(JExpr.refthis(cachedValue.valueField()), param.ref(cachedValue.valueField()));
+                }
             }
         }
 
@@ -369,17 +1180,214 @@ public class FinalValueClassModel {
 
             AbstractJClass usedValueClassType = environment.wrappedValueClassTypeInsideValueClass();
             VisitorDefinition.VisitorUsage usedVisitorType = environment.visitor(usedValueClassType, resultType, exceptionType);
-            acceptMethod.param(usedVisitorType.getVisitorType(), "visitor");
+            JVar visitor = acceptMethod.param(usedVisitorType.getVisitorType(), "visitor");
+            buildAcceptMethodBody(acceptMethod, usedVisitorType, visitor, null);
+        }
+
+        private void buildAcceptMethodBody(JMethod acceptMethod, VisitorDefinition.VisitorUsage usedVisitorType, JVar visitor, @Nullable JVar context) {
             if (isError) {
                 acceptMethod.body()._throw(JExpr._new(types._UnsupportedOperationException));
             } else {
-                JInvocation invocation = acceptorField.invoke(environment.acceptMethodName());
-                invocation.arg(JExpr.ref("visitor"));
-                acceptMethod.body()._return(invocation);
+                JSwitch _switch = acceptMethod.body()._switch(JExpr.refthis(tagField));
+                for (MethodUsage interfaceMethod: usedVisitorType.methods()) {
+                    JBlock caseBody = _switch._case(JExpr.lit(caseTag(interfaceMethod.name()))).body();
+                    JInvocation invocation = visitor.invoke(interfaceMethod.name());
+                    if (context != null)
+                        invocation.arg(context);
+                    List<VariableDeclaration> params = new ArrayList<>(interfaceMethod.params());
+                    if (interfaceMethod.hasVarArgs())
+                        params.add(interfaceMethod.varParam());
+                    // Case object is not needed when all arguments are read from value class fields
+                    JVar acceptor = null;
+                    for (VariableDeclaration param: params) {
+                        if (commonFields.get(interfaceMethod.name()).get(param.name()) == null) {
+                            AbstractJClass usedCaseClassType = usedCaseClassTypeInsideValueClass(interfaceMethod.name());
+                            acceptor = caseBody.decl(usedCaseClassType, "acceptor", JExpr.cast(usedCaseClassType, acceptorRef(JExpr._this())));
+                            break;
+                        }
+                    }
+                    for (VariableDeclaration param: params) {
+                        invocation.arg(caseFieldRefInsideValueClass(interfaceMethod.name(), param.name(), acceptor));
+                    }
+                    caseBody._return(invocation);
+                }
+                _switch._default().body()._throw(unexpectedTagException());
             }
         }
 
-        Map<String, JMethod> buildConstructorMethods(Serialization serialization) {
+        // Nested visitor-interface with additional context argument and accept-method overload
+        // Context is passed as first argument, since visitor methods may have varargs
+        void buildContextAcceptMethod() throws JClassAlreadyExistsException {
+            JTypeVar visitorResultTypeParameter = environment.visitorDefinition().getResultTypeParameter();
+            if (environment.contextVisitors() && visitorResultTypeParameter != null) {
+                int mods = Source.toJMod(environment.acceptMethodAccessLevel());
+                VariableNameSource typeParameterNameSource = new VariableNameSource();
+                for (JTypeVar visitorTypeParameter: environment.visitorDefinition().visitorInterface().typeParams()) {
+                    typeParameterNameSource.get(visitorTypeParameter.name());
+                }
+                String contextTypeParameterName = typeParameterNameSource.get("C");
+
+                JDefinedClass visitorInterface = environment.buildValueClassInnerClass(mods, "ContextVisitor", EClassType.INTERFACE);
+                List<JTypeVar> interfaceValueTypeParameters = new ArrayList<>();
+                for (JTypeVar visitorTypeParameter: environment.getValueTypeParameters()) {
+                    JTypeVar typeParameter = visitorInterface.generify(visitorTypeParameter.name());
+                    typeParameter.boundLike(visitorTypeParameter);
+                    interfaceValueTypeParameters.add(typeParameter);
+                }
+                JTypeVar interfaceContextType = visitorInterface.generify(contextTypeParameterName);
+                JTypeVar interfaceResultType = visitorInterface.generify(visitorResultTypeParameter.name());
+                interfaceResultType.boundLike(visitorResultTypeParameter);
+                JTypeVar visitorExceptionTypeParameter = environment.visitorDefinition().getExceptionTypeParameter();
+                JTypeVar interfaceExceptionType = null;
+                if (visitorExceptionTypeParameter != null) {
+                    interfaceExceptionType = visitorInterface.generify(visitorExceptionTypeParameter.name());
+                    interfaceExceptionType.boundLike(visitorExceptionTypeParameter);
+                }
+                AbstractJClass interfaceValueClassType = environment.wrappedValueClassType(interfaceValueTypeParameters.toArray(new AbstractJClass[interfaceValueTypeParameters.size()]));
+                VisitorDefinition.VisitorUsage interfaceVisitor = environment.visitor(interfaceValueClassType, interfaceResultType, interfaceExceptionType);
+                for (MethodUsage interfaceMethod: interfaceVisitor.methods()) {
+                    JMethod visitorMethod = visitorInterface.method(JMod.PUBLIC, interfaceResultType, interfaceMethod.name());
+                    for (JTypeVar visitorMethodTypeParameter: interfaceMethod.typeParams()) {
+                        JTypeVar typeParameter = visitorMethod.generify(visitorMethodTypeParameter.name());
+                        typeParameter.boundLike(visitorMethodTypeParameter);
+                    }
+                    MethodUsage usedInterfaceMethod = interfaceMethod.narrow(visitorMethod.typeParams());
+                    VariableNameSource nameSource = new VariableNameSource();
+                    for (VariableDeclaration param: usedInterfaceMethod.params()) {
+                        nameSource.get(param.name());
+                    }
+                    VariableDeclaration param = usedInterfaceMethod.varParam();
+                    if (param != null) {
+                        nameSource.get(param.name());
+                    }
+                    visitorMethod.param(interfaceContextType, nameSource.get("context"));
+                    for (VariableDeclaration methodParam: usedInterfaceMethod.params()) {
+                        visitorMethod.param(methodParam.mods().getValue(), methodParam.type().declarable(), methodParam.name());
+                    }
+                    if (param != null) {
+                        visitorMethod.varParam(param.mods().getValue(), param.type().elementType().declarable(), param.name());
+                    }
+                    if (interfaceExceptionType != null)
+                        visitorMethod._throws(interfaceExceptionType);
+                }
+
+                JMethod acceptMethod = environment.buildValueClassMethod(mods | JMod.FINAL, environment.acceptMethodName());
+                List<AbstractJClass> visitorTypeArguments = new ArrayList<>();
+                visitorTypeArguments.addAll(environment.unwrappedValueClassTypeInsideValueClass().getTypeParameters());
+                JTypeVar contextType = acceptMethod.generify(contextTypeParameterName);
+                visitorTypeArguments.add(contextType);
+                JTypeVar resultType = acceptMethod.generify(visitorResultTypeParameter.name());
+                resultType.boundLike(visitorResultTypeParameter);
+                visitorTypeArguments.add(resultType);
+                acceptMethod.type(resultType);
+                JTypeVar exceptionType = null;
+                if (visitorExceptionTypeParameter != null) {
+                    exceptionType = acceptMethod.generify(visitorExceptionTypeParameter.name());
+                    exceptionType.boundLike(visitorExceptionTypeParameter);
+                    acceptMethod._throws(exceptionType);
+                    visitorTypeArguments.add(exceptionType);
+                }
+                AbstractJClass usedValueClassType = environment.wrappedValueClassTypeInsideValueClass();
+                VisitorDefinition.VisitorUsage usedVisitorType = environment.visitor(usedValueClassType, resultType, exceptionType);
+                AbstractJClass visitorType = visitorInterface.narrow(visitorTypeArguments.toArray(new AbstractJClass[visitorTypeArguments.size()]));
+                JVar visitor = acceptMethod.param(visitorType, "visitor");
+                JVar context = acceptMethod.param(contextType, "context");
+                buildAcceptMethodBody(acceptMethod, usedVisitorType, visitor, context);
+            }
+        }
+
+        void buildPrimitiveAcceptMethods() throws JClassAlreadyExistsException {
+            if (environment.primitiveVisitors()) {
+                buildPrimitiveAcceptMethod(types._int);
+                buildPrimitiveAcceptMethod(types._long);
+                buildPrimitiveAcceptMethod(types._double);
+                buildPrimitiveAcceptMethod(types._boolean);
+            }
+        }
+
+        // Nested visitor-interface returning primitive value and matching accept-method
+        // Visitor methods get the same parameters as methods of accept-method visitor
+        private void buildPrimitiveAcceptMethod(JPrimitiveType resultType) throws JClassAlreadyExistsException {
+            int mods = Source.toJMod(environment.acceptMethodAccessLevel());
+            String typeName = Source.capitalize(resultType.name());
+            JDefinedClass visitorInterface = environment.buildValueClassInnerClass(mods, typeName + "Visitor", EClassType.INTERFACE);
+            List<JTypeVar> interfaceValueTypeParameters = new ArrayList<>();
+            for (JTypeVar visitorTypeParameter: environment.getValueTypeParameters()) {
+                JTypeVar typeParameter = visitorInterface.generify(visitorTypeParameter.name());
+                typeParameter.boundLike(visitorTypeParameter);
+                interfaceValueTypeParameters.add(typeParameter);
+            }
+            JTypeVar visitorExceptionTypeParameter = environment.visitorDefinition().getExceptionTypeParameter();
+            JTypeVar interfaceExceptionType = null;
+            if (visitorExceptionTypeParameter != null) {
+                interfaceExceptionType = visitorInterface.generify(visitorExceptionTypeParameter.name());
+                interfaceExceptionType.boundLike(visitorExceptionTypeParameter);
+            }
+            AbstractJClass interfaceValueClassType = environment.wrappedValueClassType(interfaceValueTypeParameters.toArray(new AbstractJClass[interfaceValueTypeParameters.size()]));
+            VisitorDefinition.VisitorUsage interfaceVisitor = environment.visitor(interfaceValueClassType, resultType.boxify(), interfaceExceptionType);
+            for (MethodUsage interfaceMethod: interfaceVisitor.methods()) {
+                JMethod visitorMethod = visitorInterface.method(JMod.PUBLIC, resultType, interfaceMethod.name());
+                for (JTypeVar visitorMethodTypeParameter: interfaceMethod.typeParams()) {
+                    JTypeVar typeParameter = visitorMethod.generify(visitorMethodTypeParameter.name());
+                    typeParameter.boundLike(visitorMethodTypeParameter);
+                }
+                MethodUsage usedInterfaceMethod = interfaceMethod.narrow(visitorMethod.typeParams());
+                for (VariableDeclaration param: usedInterfaceMethod.params()) {
+                    visitorMethod.param(param.mods().getValue(), param.type().declarable(), param.name());
+                }
+                VariableDeclaration param = usedInterfaceMethod.varParam();
+                if (param != null) {
+                    visitorMethod.varParam(param.mods().getValue(), param.type().elementType().declarable(), param.name());
+                }
+                if (interfaceExceptionType != null)
+                    visitorMethod._throws(interfaceExceptionType);
+            }
+
+            JMethod acceptMethod = environment.buildValueClassMethod(mods | JMod.FINAL, environment.acceptMethodName() + typeName);
+            acceptMethod.type(resultType);
+            List<AbstractJClass> visitorTypeArguments = new ArrayList<>();
+            visitorTypeArguments.addAll(environment.unwrappedValueClassTypeInsideValueClass().getTypeParameters());
+            JTypeVar exceptionType = null;
+            if (visitorExceptionTypeParameter != null) {
+                exceptionType = acceptMethod.generify(visitorExceptionTypeParameter.name());
+                exceptionType.boundLike(visitorExceptionTypeParameter);
+                acceptMethod._throws(exceptionType);
+                visitorTypeArguments.add(exceptionType);
+            }
+            AbstractJClass usedValueClassType = environment.wrappedValueClassTypeInsideValueClass();
+            VisitorDefinition.VisitorUsage usedVisitorType = environment.visitor(usedValueClassType, resultType.boxify(), exceptionType);
+            AbstractJClass visitorType = Source.narrowType(visitorInterface, visitorTypeArguments.toArray(new AbstractJClass[visitorTypeArguments.size()]));
+            JVar visitor = acceptMethod.param(visitorType, "visitor");
+            buildAcceptMethodBody(acceptMethod, usedVisitorType, visitor, null);
+        }
+
+        private JFieldVar buildValueCacheField(MethodUsage interfaceMethod, AbstractJClass caseClassType, AbstractJClass unwrappedValueClassType, AbstractJClass valueClassType, ValueCacheConfiguration valueCache) {
+            VariableDeclaration param = interfaceMethod.params().iterator().next();
+            JFieldVar cacheField = environment.buildValueClassField(JMod.PRIVATE | JMod.STATIC | JMod.FINAL,
+                                                                    valueClassType.array(),
+                                                                    interfaceMethod.name().toUpperCase(Locale.US) + "_CACHE",
+                                                                    JExpr.newArray(valueClassType, valueCache.size()));
+            JAnnotationUse fieldAnnotationUse = cacheField.annotate(SuppressWarnings.class);
+            JAnnotationArrayMember paramArray = fieldAnnotationUse.paramArray("value");
+            paramArray.param("unchecked");
+            paramArray.param("rawtypes");
+
+            JForLoop loop = environment.valueClassStaticInitializer()._for();
+            JVar index = loop.init(types._int, "i", JExpr.lit(0));
+            loop.test(index.lt(cacheField.ref("length")));
+            loop.update(index.incr());
+            JInvocation caseClassConstructorInvocation = JExpr._new(caseClassType);
+            IJExpression argument = JExpr.lit(valueCache.low()).plus(index);
+            if (!param.type().name().equals("int"))
+                argument = JExpr.cast(param.type().declarable(), argument);
+            caseClassConstructorInvocation.arg(argument);
+            IJExpression constructorInvocation = caseValue(unwrappedValueClassType, caseClassConstructorInvocation, interfaceMethod.name());
+            IJExpression value = internedValue(valueClassType, wrappedValue(valueClassType, constructorInvocation));
+            loop.body().assign(cacheField.component(index), value);
+            return cacheField;
+        }
+
+        Map<String, JMethod> buildConstructorMethods(Serialization serialization, Map<String, ValueCacheConfiguration> valueCaches) {
             Map<String, JMethod> constructorMethods = new TreeMap<>();
             for (JMethod interfaceMethodDefinition: environment.visitorDefinition().methodDefinitions()) {
                 JMethod constructorMethod = environment.buildValueClassMethod(Source.toJMod(environment.factoryMethodAccessLevel()) | JMod.STATIC, interfaceMethodDefinition.name());
@@ -426,8 +1434,8 @@ public class FinalValueClassModel {
                 if (isError) {
                     constructorMethod.body()._throw(JExpr._new(types._UnsupportedOperationException));
                 } else {
-                    AbstractJClass usedCaseClassType = Source.narrowType(caseClasses.get(usedInterfaceMethod.name()), constructorMethod.typeParams());
                     if (!usedInterfaceMethod.params().isEmpty() || usedInterfaceMethod.hasVarArgs()) {
+                        AbstractJClass usedCaseClassType = Source.narrowType(caseClasses.get(usedInterfaceMethod.name()), constructorMethod.typeParams());
                         boolean hasNullChecks = false;
                         for (VariableDeclaration param1: usedInterfaceMethod.params()) {
                             if (param1.type().isReference() && !Source.isNullable(param1)) {
@@ -454,54 +1462,180 @@ public class FinalValueClassModel {
                                 hasNullChecks = true;
                             }
                         }
-                        if (hasNullChecks) {
-                            JAnnotationUse annotation = constructorMethod.annotate(SuppressWarnings.class);
-                            annotation.paramArray("value", "null");
+
+                        ValueCacheConfiguration valueCache = valueCaches.get(usedInterfaceMethod.name());
+                        if (valueCache != null) {
+                            JFieldVar cacheField = buildValueCacheField(usedInterfaceMethod, usedCaseClassType.erasure(), unwrappedUsedValueClassType.erasure(), usedValueClassType.erasure(), valueCache);
+                            VariableDeclaration cachedParam = usedInterfaceMethod.params().iterator().next();
+                            JVar argument = constructorMethod.params().get(0);
+                            IJExpression isCached = argument.gte(JExpr.lit(valueCache.low())).cand(argument.lte(JExpr.lit(valueCache.high())));
+                            IJExpression index = argument.minus(JExpr.lit(valueCache.low()));
+                            if (cachedParam.type().name().equals("long"))
+                                index = JExpr.cast(types._int, index);
+                            JConditional cacheCheck = constructorMethod.body()._if(isCached);
+                            cacheCheck._then()._return(cacheField.component(index));
                         }
 
                         JInvocation caseClassConstructorInvocation = JExpr._new(usedCaseClassType);
                         for (VariableDeclaration param2: usedInterfaceMethod.params()) {
-                            caseClassConstructorInvocation.arg(JExpr.ref(param2.name()));
+                            if (isLazyField(usedInterfaceMethod.name(), param2.name()))
+                                caseClassConstructorInvocation.arg(JExpr._null());
+                            caseClassConstructorInvocation.arg(canonicalValue(usedInterfaceMethod.name(), param2.name(), param2.type().declarable(), copiedArray(param2.type(), JExpr.ref(param2.name()))));
                         }
                         VariableDeclaration param2 = usedInterfaceMethod.varParam();
                         if (param2 != null) {
-                            caseClassConstructorInvocation.arg(JExpr.ref(param2.name()));
+                            caseClassConstructorInvocation.arg(copiedArray(param2.type(), JExpr.ref(param2.name())));
+                        }
+                        IJExpression constructorInvocation = caseValue(unwrappedUsedValueClassType, caseClassConstructorInvocation, usedInterfaceMethod.name());
+                        IJExpression result = wrappedValue(usedValueClassType, constructorInvocation);
+                        result = internedValue(usedValueClassType, result);
+                        constructorMethod.body()._return(result);
+
+                        boolean hasCanonicalValues = hasCanonicalValues(usedInterfaceMethod.name());
+                        if (hasNullChecks || internTableField != null || valueCache != null || hasCanonicalValues) {
+                            JAnnotationUse annotation = constructorMethod.annotate(SuppressWarnings.class);
+                            JAnnotationArrayMember paramArray = annotation.paramArray("value");
+                            if (hasNullChecks)
+                                paramArray.param("null");
+                            if (internTableField != null || valueCache != null || hasCanonicalValues)
+                                paramArray.param("unchecked");
                         }
-                        JInvocation constructorInvocation = JExpr._new(unwrappedUsedValueClassType);
-                        constructorInvocation.arg(caseClassConstructorInvocation);
-                        constructorMethod.body()._return(environment.wrappedValue(usedValueClassType, constructorInvocation));
                     } else {
-                        JInvocation caseClassConstructorInvocation = JExpr._new(usedCaseClassType.erasure());
-                        JInvocation initializer = JExpr._new(unwrappedUsedValueClassType.erasure());
-                        initializer.arg(caseClassConstructorInvocation);
+                        IJExpression initializer;
+                        if (environment.isEnumLike()) {
+                            JInvocation constructorInvocation = JExpr._new(unwrappedUsedValueClassType.erasure());
+                            constructorInvocation.arg(JExpr.lit(caseTag(usedInterfaceMethod.name())));
+                            initializer = constructorInvocation;
+                        } else {
+                            AbstractJClass usedCaseClassType = Source.narrowType(caseClasses.get(usedInterfaceMethod.name()), constructorMethod.typeParams());
+                            JInvocation caseClassConstructorInvocation = JExpr._new(usedCaseClassType.erasure());
+                            initializer = caseValue(unwrappedUsedValueClassType.erasure(), caseClassConstructorInvocation, usedInterfaceMethod.name());
+                        }
                         JFieldVar singletonInstanceField = environment.buildValueClassField(JMod.PRIVATE | JMod.STATIC | JMod.FINAL,
                                                                             usedValueClassType.erasure(),
                                                                             usedInterfaceMethod.name().toUpperCase(Locale.US),
-                                                                            environment.wrappedValue(usedValueClassType.erasure(), initializer));
-                        JAnnotationUse fieldAnnotationUse = singletonInstanceField.annotate(SuppressWarnings.class);
-                        JAnnotationArrayMember paramArray = fieldAnnotationUse.paramArray("value");
-                        paramArray.param("unchecked");
-                        paramArray.param("rawtypes");
+                                                                            wrappedValue(usedValueClassType.erasure(), initializer));
+                        if (!environment.getValueTypeParameters().isEmpty()) {
+                            JAnnotationUse fieldAnnotationUse = singletonInstanceField.annotate(SuppressWarnings.class);
+                            JAnnotationArrayMember paramArray = fieldAnnotationUse.paramArray("value");
+                            paramArray.param("unchecked");
+                            paramArray.param("rawtypes");
+
+                            JAnnotationUse methodAnnotationUse = constructorMethod.annotate(SuppressWarnings.class);
+                            methodAnnotationUse.param("value", "unchecked");
+                        }
+                        singletonInstanceFields.put(usedInterfaceMethod.name(), singletonInstanceField);
 
-                        JAnnotationUse methodAnnotationUse = constructorMethod.annotate(SuppressWarnings.class);
-                        methodAnnotationUse.param("value", "unchecked");
                         constructorMethod.body()._return(singletonInstanceField);
                     }
                 }
                 constructorMethods.put(usedInterfaceMethod.name(), constructorMethod);
+                if (lazyFields.containsKey(usedInterfaceMethod.name()))
+                    buildLazyConstructorMethod(interfaceMethodDefinition);
             }
             return constructorMethods;
         }
 
-        void buildHashCodeMethod(int hashCodeBase) {
+        private void buildLazyConstructorMethod(JMethod interfaceMethodDefinition) {
+            String methodName = "lazy" + Source.capitalize(interfaceMethodDefinition.name());
+            JMethod constructorMethod = environment.buildValueClassMethod(Source.toJMod(environment.factoryMethodAccessLevel()) | JMod.STATIC, methodName);
+            Source.annotateNonnull(constructorMethod);
+            for (JTypeVar visitorTypeParameter: environment.getValueTypeParameters()) {
+                JTypeVar typeParameter = constructorMethod.generify(visitorTypeParameter.name());
+                typeParameter.boundLike(visitorTypeParameter);
+            }
+            AbstractJClass unwrappedUsedValueClassType = environment.unwrappedValueClassType(constructorMethod.typeParams());
+            AbstractJClass usedValueClassType = environment.wrappedValueClassType(constructorMethod.typeParams());
+            VisitorDefinition.VisitorUsage usedVisitor = environment.visitor(usedValueClassType, usedValueClassType, types._RuntimeException);
+
+            MethodUsage genericInterfaceMethod = usedVisitor.findMethod(interfaceMethodDefinition.name());
+            if (genericInterfaceMethod == null)
+                throw new IllegalStateException("Method with given name not found: " + interfaceMethodDefinition.name());
+            List<AbstractJClass> methodTypeArguments = new ArrayList<>();
+            for (JTypeVar visitorTypeParameter: genericInterfaceMethod.typeParams()) {
+                JTypeVar typeParameter = constructorMethod.generify(visitorTypeParameter.name());
+                typeParameter.boundLike(visitorTypeParameter);
+                methodTypeArguments.add(typeParameter);
+            }
+            constructorMethod.type(usedValueClassType);
+            MethodUsage usedInterfaceMethod = genericInterfaceMethod.narrow(methodTypeArguments.toArray(new AbstractJClass[methodTypeArguments.size()]));
+            List<String> checkedParamNames = new ArrayList<>();
+            for (VariableDeclaration param: usedInterfaceMethod.params()) {
+                JVar constructorMethodParam;
+                if (isLazyField(usedInterfaceMethod.name(), param.name())) {
+                    constructorMethodParam = constructorMethod.param(param.mods().getValue(), types._Thunk.narrow(param.type().declarable().boxify().wildcard()), param.name());
+                    Source.annotateNonnull(constructorMethodParam);
+                    checkedParamNames.add(param.name());
+                } else {
+                    constructorMethodParam = constructorMethod.param(param.mods().getValue(), param.type().declarable(), param.name());
+                    if (param.type().isReference()) {
+                        if (Source.isNullable(param))
+                            Source.annotateNullable(constructorMethodParam);
+                        else {
+                            Source.annotateNonnull(constructorMethodParam);
+                            checkedParamNames.add(param.name());
+                        }
+                    }
+                }
+            }
+            VariableDeclaration varParam = usedInterfaceMethod.varParam();
+            if (varParam != null) {
+                JVar constructorMethodParam = constructorMethod.varParam(varParam.mods().getValue(), varParam.type().elementType().declarable(), varParam.name());
+                if (Source.isNullable(varParam))
+                    Source.annotateNullable(constructorMethodParam);
+                else {
+                    Source.annotateNonnull(constructorMethodParam);
+                    checkedParamNames.add(varParam.name());
+                }
+            }
+
+            if (isError) {
+                constructorMethod.body()._throw(JExpr._new(types._UnsupportedOperationException));
+            } else {
+                for (String paramName: checkedParamNames) {
+                    JConditional nullCheck = constructorMethod.body()._if(JExpr.ref(paramName).eq(JExpr._null()));
+                    JInvocation nullPointerExceptionConstruction = JExpr._new(types._NullPointerException);
+                    nullPointerExceptionConstruction.arg(JExpr.lit(MessageFormat.format("Argument shouldn''t be null: ''{0}'' argument in static method invocation: ''{1}'' in class {2}",
+                                                                                        paramName,
+                                                                                        constructorMethod.name(),
+                                                                                        environment.valueClassQualifiedName())));
+                    nullCheck._then()._throw(nullPointerExceptionConstruction);
+                }
+                AbstractJClass usedCaseClassType = Source.narrowType(caseClasses.get(usedInterfaceMethod.name()), constructorMethod.typeParams());
+                JInvocation caseClassConstructorInvocation = JExpr._new(usedCaseClassType);
+                for (VariableDeclaration param: usedInterfaceMethod.params()) {
+                    if (isLazyField(usedInterfaceMethod.name(), param.name())) {
+                        caseClassConstructorInvocation.arg(JExpr.ref(param.name()));
+                        caseClassConstructorInvocation.arg(defaultValue(param.type().declarable()));
+                    } else
+                        caseClassConstructorInvocation.arg(canonicalValue(usedInterfaceMethod.name(), param.name(), param.type().declarable(), copiedArray(param.type(), JExpr.ref(param.name()))));
+                }
+                if (varParam != null)
+                    caseClassConstructorInvocation.arg(copiedArray(varParam.type(), JExpr.ref(varParam.name())));
+                IJExpression constructorInvocation = caseValue(unwrappedUsedValueClassType, caseClassConstructorInvocation, usedInterfaceMethod.name());
+                constructorMethod.body()._return(wrappedValue(usedValueClassType, constructorInvocation));
+                if (!checkedParamNames.isEmpty() || hasCanonicalValues(usedInterfaceMethod.name())) {
+                    JAnnotationUse annotation = constructorMethod.annotate(SuppressWarnings.class);
+                    JAnnotationArrayMember paramArray = annotation.paramArray("value");
+                    if (!checkedParamNames.isEmpty())
+                        paramArray.param("null");
+                    if (hasCanonicalValues(usedInterfaceMethod.name()))
+                        paramArray.param("unchecked");
+                }
+            }
+        }
+
+        void buildHashCodeMethod(int hashCodeBase, HashAlgorithm hashAlgorithm) {
             if (!isError) {
                 String hashCodeMethodName = hashCodeAcceptorMethodName();
                 JMethod hashCodeMethod = environment.buildValueClassMethod(JMod.PUBLIC | JMod.FINAL, "hashCode");
                 hashCodeMethod.type(types._int);
                 hashCodeMethod.annotate(Override.class);
 
-                if (environment.hashCodeCaching() == Caching.NONE) {
-                    JInvocation invocation = JExpr.refthis(acceptorField).invoke(hashCodeMethodName);
+                if (environment.isEnumLike()) {
+                    hashCodeMethod.body()._return(JExpr.refthis(tagField).plus(JExpr.lit(1)));
+                } else if (environment.hashCodeCaching() == Caching.NONE) {
+                    IJExpression invocation = caseDispatchInvocation(hashCodeMethodName, acceptorRef(JExpr._this()), JExpr.refthis(tagField));
                     hashCodeMethod.body()._return(invocation);
                 } else if (environment.hashCodeCaching() == Caching.PRECOMPUTE) {
                     hashCodeMethod.body()._return(hashCodeCachedValueField);
@@ -510,21 +1644,47 @@ public class FinalValueClassModel {
                     JFieldRef hashCodeField = JExpr.refthis(hashCodeCachedValueField);
                     JVar code = hashCodeMethod.body().decl(types._int, nameSource.get("code"), hashCodeField);
                     JConditional _if = hashCodeMethod.body()._if(code.eq0());
-                    JInvocation invocation = JExpr.refthis(acceptorField).invoke(hashCodeMethodName);
+                    IJExpression invocation = caseDispatchInvocation(hashCodeMethodName, acceptorRef(JExpr._this()), JExpr.refthis(tagField));
                     _if._then().assign(code, invocation);
                     _if._then().assign(code, JOp.cond(code.ne0(), code, JExpr.lit(Integer.MIN_VALUE)));
                     _if._then().assign(hashCodeField, code);
                     hashCodeMethod.body()._return(code);
+                } else if (environment.hashCodeCaching() == Caching.ATOMIC) {
+                    AbstractJClass rawValueClassType = environment.unwrappedValueClassTypeInsideValueClass().erasure();
+                    AbstractJClass updaterType = types._AtomicIntegerFieldUpdater.narrow(rawValueClassType);
+                    JInvocation updaterInitializer = types._AtomicIntegerFieldUpdater.staticInvoke("newUpdater");
+                    updaterInitializer.arg(rawValueClassType.dotclass());
+                    updaterInitializer.arg(JExpr.lit(hashCodeCachedValueField.name()));
+                    JFieldVar updaterField = environment.buildValueClassField(JMod.PRIVATE | JMod.STATIC | JMod.FINAL, updaterType, "HASH_CODE_UPDATER", updaterInitializer);
+                    if (!environment.getValueTypeParameters().isEmpty()) {
+                        JAnnotationUse annotation = updaterField.annotate(SuppressWarnings.class);
+                        annotation.param("value", "rawtypes");
+                    }
+
+                    VariableNameSource nameSource = new VariableNameSource();
+                    JFieldRef hashCodeField = JExpr.refthis(hashCodeCachedValueField);
+                    JVar code = hashCodeMethod.body().decl(types._int, nameSource.get("code"), hashCodeField);
+                    JConditional _if1 = hashCodeMethod.body()._if(code.eq0());
+                    IJExpression invocation = caseDispatchInvocation(hashCodeMethodName, acceptorRef(JExpr._this()), JExpr.refthis(tagField));
+                    _if1._then().assign(code, invocation);
+                    _if1._then().assign(code, JOp.cond(code.ne0(), code, JExpr.lit(Integer.MIN_VALUE)));
+                    JInvocation compareAndSet = updaterField.invoke("compareAndSet");
+                    compareAndSet.arg(JExpr._this());
+                    compareAndSet.arg(JExpr.lit(0));
+                    compareAndSet.arg(code);
+                    // Value stored by another thread wins
+                    JConditional _if2 = _if1._then()._if(compareAndSet.not());
+                    _if2._then().assign(code, hashCodeField);
+                    hashCodeMethod.body()._return(code);
                 } else if (environment.hashCodeCaching() == Caching.SYNCRONIZED) {
                     VariableNameSource nameSource = new VariableNameSource();
                     JFieldRef hashCodeField = JExpr.refthis(hashCodeCachedValueField);
-                    JFieldRef lockField = JExpr.refthis(acceptorField);
                     JVar code = hashCodeMethod.body().decl(types._int, nameSource.get("code"), hashCodeField);
                     JConditional _if1 = hashCodeMethod.body()._if(code.eq0());
-                    JSynchronizedBlock synchronizedBlock = _if1._then().synchronizedBlock(lockField);
+                    JSynchronizedBlock synchronizedBlock = _if1._then().synchronizedBlock(lock());
                     synchronizedBlock.body().assign(code, hashCodeField);
                     JConditional _if2 = synchronizedBlock.body()._if(code.eq0());
-                    JInvocation invocation = JExpr.refthis(acceptorField).invoke(hashCodeMethodName);
+                    IJExpression invocation = caseDispatchInvocation(hashCodeMethodName, acceptorRef(JExpr._this()), JExpr.refthis(tagField));
                     _if2._then().assign(code, invocation);
                     _if2._then().assign(code, JOp.cond(code.ne0(), code, JExpr.lit(Integer.MIN_VALUE)));
                     _if2._then().assign(hashCodeField, code);
@@ -532,86 +1692,127 @@ public class FinalValueClassModel {
                 } else
                     throw new IllegalStateException("Unsupported hashCodeCaching: " + environment.hashCodeCaching());
 
-                JMethod acceptingInterfaceMethod = environment.buildAcceptingInterfaceMethod(JMod.PUBLIC, hashCodeMethodName);
-                acceptingInterfaceMethod.type(types._int);
+                if (!environment.isEnumLike()) {
+                    buildCaseDispatchMethod(hashCodeMethodName, types._int);
 
-                int tag = 1;
-                for (JMethod interfaceMethod1: environment.visitorDefinition().methodDefinitions()) {
-                    JDefinedClass caseClass = caseClasses.get(interfaceMethod1.name());
-                    JMethod caseHashCodeMethod = caseClass.method(JMod.PUBLIC | JMod.FINAL, types._int, hashCodeMethodName);
-                    caseHashCodeMethod.annotate(Override.class);
+                    int tag = 1;
+                    for (JMethod interfaceMethod1: environment.visitorDefinition().methodDefinitions()) {
+                        JDefinedClass caseClass = caseClasses.get(interfaceMethod1.name());
+                        JMethod caseHashCodeMethod = caseClass.method(JMod.FINAL, types._int, hashCodeMethodName);
 
-                    VariableNameSource nameSource = new VariableNameSource();
-                    List<JFieldVar> arguments = new ArrayList<>();
-                    JFieldVar varArgument = null;
-                    for (JVar param: interfaceMethod1.params()) {
-                        arguments.add(caseClass.fields().get(param.name()));
-                    }
-                    JVar param = interfaceMethod1.varParam();
-                    if (param != null) {
-                        varArgument = caseClass.fields().get(param.name());
-                    }
-
-                    HashCodeMethod methodModel = new HashCodeMethod(types, hashCodeBase, caseHashCodeMethod.body(), nameSource);
-                    HashCodeMethod.Body body = methodModel.createBody(tag);
-                    for (int i = 0; i < arguments.size(); i++) {
-                        param = interfaceMethod1.params().get(i);
-                        JFieldVar argument = arguments.get(i);
-                        if (Source.isNullable(param))
-                            body.appendNullableValue(argument.type(), JExpr.refthis(argument));
-                        else
-                            body.appendNotNullValue(argument.type(), JExpr.refthis(argument));
-                    }
-                    if (varArgument != null) {
-                        if (Source.isNullable(param))
-                            body.appendNullableValue(varArgument.type(), JExpr.refthis(varArgument));
-                        else
-                            body.appendNotNullValue(varArgument.type(), JExpr.refthis(varArgument));
+                        if (environment.caseClassesExtendValueClass() && environment.hashCodeCaching() == Caching.PRECOMPUTE) {
+                            JMethod computationMethod = caseClass.method(JMod.PRIVATE | JMod.STATIC, types._int, hashCodeComputationMethodName());
+                            for (JTypeVar caseClassTypeParameter: caseClass.typeParams()) {
+                                JTypeVar typeParameter = computationMethod.generify(caseClassTypeParameter.name());
+                                typeParameter.boundLike(caseClassTypeParameter);
+                            }
+                            JInvocation computationInvocation = JExpr.invoke(computationMethod);
+                            List<IJExpression> arguments = new ArrayList<>();
+                            IJExpression varArgument = null;
+                            for (JVar param: interfaceMethod1.params()) {
+                                arguments.add(computationMethod.param(caseClassFieldType(interfaceMethod1.name(), param.name()), param.name()));
+                                computationInvocation.arg(caseClassFieldRef(interfaceMethod1.name(), param.name()));
+                            }
+                            JVar param = interfaceMethod1.varParam();
+                            if (param != null) {
+                                varArgument = computationMethod.param(caseClassFieldType(interfaceMethod1.name(), param.name()), param.name());
+                                computationInvocation.arg(caseClassFieldRef(interfaceMethod1.name(), param.name()));
+                            }
+                            buildCaseHashCodeBody(computationMethod.body(), hashCodeBase, hashAlgorithm, tag, interfaceMethod1, arguments, varArgument);
+                            caseHashCodeMethod.body()._return(computationInvocation);
+                        } else {
+                            List<IJExpression> arguments = new ArrayList<>();
+                            IJExpression varArgument = null;
+                            for (JVar param: interfaceMethod1.params()) {
+                                arguments.add(caseClassFieldRef(interfaceMethod1.name(), param.name()));
+                            }
+                            JVar param = interfaceMethod1.varParam();
+                            if (param != null) {
+                                varArgument = caseClassFieldRef(interfaceMethod1.name(), param.name());
+                            }
+                            buildCaseHashCodeBody(caseHashCodeMethod.body(), hashCodeBase, hashAlgorithm, tag, interfaceMethod1, arguments, varArgument);
+                        }
+                        tag++;
                     }
-                    caseHashCodeMethod.body()._return(body.result());
-                    tag++;
                 }
             }
         }
 
+        private void buildCaseHashCodeBody(JBlock methodBody, int hashCodeBase, HashAlgorithm hashAlgorithm, int tag, JMethod interfaceMethod, List<IJExpression> arguments, IJExpression varArgument) {
+            VariableNameSource nameSource = new VariableNameSource();
+            HashCodeMethod methodModel = new HashCodeMethod(types, hashCodeBase, hashAlgorithm, environment.floatCustomization(), methodBody, nameSource);
+            HashCodeMethod.Body body = methodModel.createBody(tag);
+            for (int i = 0; i < arguments.size(); i++) {
+                appendCaseHashCodeField(body, interfaceMethod, interfaceMethod.params().get(i), arguments.get(i));
+            }
+            if (varArgument != null) {
+                appendCaseHashCodeField(body, interfaceMethod, interfaceMethod.varParam(), varArgument);
+            }
+            body.appendFinalization();
+            methodBody._return(body.result());
+        }
+
+        private void appendCaseHashCodeField(HashCodeMethod.Body body, JMethod interfaceMethod, JVar param, IJExpression argument) {
+            AbstractJType argumentType = caseClassFieldType(interfaceMethod.name(), param.name());
+            FieldEquality equality = fieldEquality(interfaceMethod.name(), param.name());
+            if (equality == FieldEquality.IDENTITY)
+                body.appendIdentityValue(argument);
+            else if (equality == FieldEquality.SHALLOW) {
+                if (Source.isNullable(param))
+                    body.appendNullableShallowArray(argumentType, argument);
+                else
+                    body.appendNotNullShallowArray(argumentType, argument);
+            } else if (equality == FieldEquality.STRUCTURAL) {
+                if (Source.isNullable(param))
+                    body.appendNullableValue(argumentType, argument);
+                else
+                    body.appendNotNullValue(argumentType, argument);
+            }
+        }
+
         void buildToStringMethod() {
-            if (!isError) {
+            if (!isError && environment.isEnumLike()) {
                 JMethod toStringMethod = environment.buildValueClassMethod(JMod.PUBLIC | JMod.FINAL, "toString");
                 toStringMethod.type(types._String);
                 toStringMethod.annotate(Override.class);
                 Source.annotateNonnull(toStringMethod);
-                JInvocation invocation1 = JExpr.refthis(acceptorField).invoke("toString");
-                toStringMethod.body()._return(invocation1);
+                JSwitch _switch = toStringMethod.body()._switch(JExpr.refthis(tagField));
+                for (JMethod interfaceMethod: environment.visitorDefinition().methodDefinitions()) {
+                    JBlock caseBody = _switch._case(JExpr.lit(caseTag(interfaceMethod.name()))).body();
+                    caseBody._return(JExpr.lit(environment.valueClassName() + "." + Source.capitalize(interfaceMethod.name()) + "{}"));
+                }
+                _switch._default().body()._throw(unexpectedTagException());
+            } else if (!isError) {
+                JMethod toStringMethod = environment.buildValueClassMethod(JMod.PUBLIC | JMod.FINAL, "toString");
+                toStringMethod.type(types._String);
+                toStringMethod.annotate(Override.class);
+                Source.annotateNonnull(toStringMethod);
+                String toStringMethodName = Source.decapitalize(environment.valueClassName()) + "ToString";
+                JMethod dispatchMethod = buildCaseDispatchMethod(toStringMethodName, types._String);
+                Source.annotateNonnull(dispatchMethod);
+                toStringMethod.body()._return(caseDispatchInvocation(toStringMethodName, acceptorRef(JExpr._this()), JExpr.refthis(tagField)));
 
                 for (JMethod interfaceMethod1: environment.visitorDefinition().methodDefinitions()) {
                     JDefinedClass caseClass = caseClasses.get(interfaceMethod1.name());
-                    JMethod caseToStringMethod = caseClass.method(JMod.PUBLIC | JMod.FINAL, types._String, "toString");
-                    caseToStringMethod.annotate(Override.class);
+                    JMethod caseToStringMethod = caseClass.method(JMod.FINAL, types._String, toStringMethodName);
                     Source.annotateNonnull(caseToStringMethod);
 
                     VariableNameSource nameSource = new VariableNameSource();
-                    List<JFieldVar> arguments = new ArrayList<>();
-                    JFieldVar varArgument = null;
-                    for (JVar param: interfaceMethod1.params()) {
-                        arguments.add(caseClass.fields().get(param.name()));
-                    }
-                    JVar param = interfaceMethod1.varParam();
-                    if (param != null) {
-                        varArgument = caseClass.fields().get(param.name());
-                    }
+                    List<JVar> arguments = interfaceMethod1.params();
+                    JVar varArgument = interfaceMethod1.varParam();
 
                     JVar result = caseToStringMethod.body().decl(types._StringBuilder, nameSource.get("result"), JExpr._new(types._StringBuilder));
                     JInvocation invocation = caseToStringMethod.body().invoke(result, "append");
                     invocation.arg(environment.valueClassName() + "." + Source.capitalize(interfaceMethod1.name()) + "{");
                     ToStringMethodBody body = new ToStringMethodBody(types, caseToStringMethod.body(), result);
                     if (!arguments.isEmpty()) {
-                        JFieldVar argument = arguments.get(0);
-                        body.appendParam(argument.type(), interfaceMethod1.params().get(0).name(), JExpr.refthis(argument));
+                        String argument = arguments.get(0).name();
+                        body.appendParam(caseClassFieldType(interfaceMethod1.name(), argument), argument, caseClassFieldRef(interfaceMethod1.name(), argument));
                         for (int i = 1; i < arguments.size(); i++) {
                             invocation = caseToStringMethod.body().invoke(result, "append");
                             invocation.arg(", ");
-                            argument = arguments.get(i);
-                            body.appendParam(argument.type(), interfaceMethod1.params().get(i).name(), JExpr.refthis(argument));
+                            argument = arguments.get(i).name();
+                            body.appendParam(caseClassFieldType(interfaceMethod1.name(), argument), argument, caseClassFieldRef(interfaceMethod1.name(), argument));
                         }
                     }
                     if (varArgument != null) {
@@ -619,7 +1820,8 @@ public class FinalValueClassModel {
                             invocation = caseToStringMethod.body().invoke(result, "append");
                             invocation.arg(", ");
                         }
-                        body.appendParam(varArgument.type(), interfaceMethod1.varParam().name(), JExpr.refthis(varArgument));
+                        String argument = varArgument.name();
+                        body.appendParam(caseClassFieldType(interfaceMethod1.name(), argument), argument, caseClassFieldRef(interfaceMethod1.name(), argument));
                     }
                     invocation = caseToStringMethod.body().invoke(result, "append");
                     invocation.arg("}");
@@ -640,51 +1842,35 @@ public class FinalValueClassModel {
             }
             if (isError) {
                 getterMethod.body()._throw(JExpr._new(types._UnsupportedOperationException));
+            } else if (isCommonField(field.name())) {
+                getterMethod.body()._return(copiedArray(field.type(), JExpr.refthis(field.name())));
             } else {
-                JMethod implementation = environment.buildAcceptingInterfaceMethod(JMod.PUBLIC, getterName);
-                implementation.type(field.type());
-                if (field.type().isReference()) {
-                    if (field.isNullable())
-                        Source.annotateNullable(implementation);
-                    else
-                        Source.annotateNonnull(implementation);
-                }
-
-                JInvocation invocation1 = JExpr.refthis(acceptorField).invoke(implementation);
-                getterMethod.body()._return(invocation1);
-
+                JSwitch _switch = getterMethod.body()._switch(JExpr.refthis(tagField));
                 for (JMethod interfaceMethod1: environment.visitorDefinition().methodDefinitions()) {
-                    JDefinedClass caseClass = caseClasses.get(interfaceMethod1.name());
-                    getterMethod = caseClass.method(JMod.PUBLIC | JMod.FINAL, field.type(), getterName);
-                    getterMethod.annotate(Override.class);
-                    if (field.type().isReference()) {
-                        if (field.isNullable())
-                            Source.annotateNullable(getterMethod);
-                        else
-                            Source.annotateNonnull(getterMethod);
-                    }
+                    JBlock caseBody = _switch._case(JExpr.lit(caseTag(interfaceMethod1.name()))).body();
+                    AbstractJClass usedCaseClassType = usedCaseClassTypeInsideValueClass(interfaceMethod1.name());
+                    IJExpression acceptor = JExpr.cast(usedCaseClassType, acceptorRef(JExpr._this()));
                     boolean isGettable = false;
                     for (JVar param: interfaceMethod1.params()) {
-                        JFieldVar jfield = caseClass.fields().get(param.name());
                         if (field.isFieldValue(interfaceMethod1, param.name())) {
-                            getterMethod.body()._return(jfield);
+                            caseBody._return(copiedArray(field.type(), caseFieldRefInsideValueClass(interfaceMethod1.name(), param.name(), acceptor)));
                             isGettable = true;
                         }
                     }
                     JVar param = interfaceMethod1.varParam();
                     if (param != null) {
-                        JFieldVar jfield = caseClass.fields().get(param.name());
                         if (field.isFieldValue(interfaceMethod1, param.name())) {
-                            getterMethod.body()._return(jfield);
+                            caseBody._return(copiedArray(field.type(), caseFieldRefInsideValueClass(interfaceMethod1.name(), param.name(), acceptor)));
                             isGettable = true;
                         }
                     }
                     if (!isGettable) {
                         JInvocation exceptionInvocation = JExpr._new(types._IllegalStateException);
                         exceptionInvocation.arg(field.name() + " is not accessible in this case: " + interfaceMethod1.name());
-                        getterMethod.body()._throw(exceptionInvocation);
+                        caseBody._throw(exceptionInvocation);
                     }
                 }
+                _switch._default().body()._throw(unexpectedTagException());
             }
         }
 
@@ -714,8 +1900,10 @@ public class FinalValueClassModel {
             } else {
                 VariableNameSource aiUpdaterNameSource = new VariableNameSource();
                 AbstractJClass usedAcceptingInterfaceType = environment.acceptingInterfaceTypeInsideValueClass();
-                JMethod acceptingInterfaceUpdaterMethod = environment.buildAcceptingInterfaceMethod(JMod.PUBLIC, updaterName);
-                acceptingInterfaceUpdaterMethod.type(usedAcceptingInterfaceType);
+                String acceptingInterfaceUpdaterName = Source.decapitalize(environment.valueClassName()) + Source.capitalize(updaterName);
+                AbstractJClass updatedType = environment.caseClassesExtendValueClass() ? unwrappedUsedValueClassType : usedAcceptingInterfaceType;
+                JMethod acceptingInterfaceUpdaterMethod = environment.buildAcceptingInterfaceMethod(JMod.PUBLIC, acceptingInterfaceUpdaterName);
+                acceptingInterfaceUpdaterMethod.type(updatedType);
                 Source.annotateNonnull(acceptingInterfaceUpdaterMethod);
                 JVar newValueParam;
                 if (field.isVarArg())
@@ -730,26 +1918,48 @@ public class FinalValueClassModel {
                     }
                 }
 
-                JInvocation invocation1 = JExpr.refthis(acceptorField).invoke(acceptingInterfaceUpdaterMethod);
-                invocation1.arg(newValue);
-                JVar newAcceptor = updaterMethod.body().decl(usedAcceptingInterfaceType, updaterNameSource.get("newAcceptor"), invocation1);
-                JInvocation constructorInvocation = JExpr._new(unwrappedUsedValueClassType);
-                constructorInvocation.arg(newAcceptor);
-                JConditional _if = updaterMethod.body()._if(newAcceptor.ne(JExpr.refthis(acceptorField)));
-                _if._then()._return(environment.wrappedValue(usedValueClassType, constructorInvocation));
+                JConditional _if;
+                if (environment.caseClassesExtendValueClass()) {
+                    JVar updated = updaterMethod.body().decl(updatedType, updaterNameSource.get("updated"));
+                    JSwitch _switch = updaterMethod.body()._switch(JExpr.refthis(tagField));
+                    for (JMethod interfaceMethod1: environment.visitorDefinition().methodDefinitions()) {
+                        JBlock caseBody = _switch._case(JExpr.lit(caseTag(interfaceMethod1.name()))).body();
+                        AbstractJClass usedCaseClassType = usedCaseClassTypeInsideValueClass(interfaceMethod1.name());
+                        JInvocation invocation1 = JExpr.cast(usedCaseClassType, acceptorRef(JExpr._this())).invoke(acceptingInterfaceUpdaterMethod);
+                        invocation1.arg(newValue);
+                        caseBody.assign(updated, invocation1);
+                        caseBody._break();
+                    }
+                    _switch._default().body()._throw(unexpectedTagException());
+                    _if = updaterMethod.body()._if(updated.ne(acceptorRef(JExpr._this())));
+                    _if._then()._return(internedValue(usedValueClassType, wrappedValue(usedValueClassType, updated)));
+                } else {
+                    JInvocation invocation1 = JExpr.refthis(acceptorField).invoke(acceptingInterfaceUpdaterMethod);
+                    invocation1.arg(newValue);
+                    JVar newAcceptor = updaterMethod.body().decl(updatedType, updaterNameSource.get("newAcceptor"), invocation1);
+                    JInvocation constructorInvocation = JExpr._new(unwrappedUsedValueClassType);
+                    constructorInvocation.arg(newAcceptor);
+                    constructorInvocation.arg(JExpr.refthis(tagField));
+                    _if = updaterMethod.body()._if(newAcceptor.ne(JExpr.refthis(acceptorField)));
+                    _if._then()._return(internedValue(usedValueClassType, wrappedValue(usedValueClassType, constructorInvocation)));
+                }
+                if (internTableField != null) {
+                    JAnnotationUse annotation = updaterMethod.annotate(SuppressWarnings.class);
+                    annotation.param("value", "unchecked");
+                }
 
                 IJExpression thisResult;
                 if (!environment.wrappingEnabled())
                     thisResult = JExpr._this();
                 else
-                    thisResult = JExpr.cond(JExpr._this()._instanceof(usedValueClassType.erasure()), JExpr.cast(usedValueClassType, JExpr._this()), environment.wrappedValue(usedValueClassType, JExpr._this()));
+                    thisResult = JExpr.cond(JExpr._this()._instanceof(usedValueClassType.erasure()), JExpr.cast(usedValueClassType, JExpr._this()), wrappedValue(usedValueClassType, JExpr._this()));
                 _if._else()._return(thisResult);
 
                 for (JMethod interfaceMethod1: environment.visitorDefinition().methodDefinitions()) {
                     JDefinedClass caseClass = caseClasses.get(interfaceMethod1.name());
                     AbstractJClass usedCaseClassType = Source.narrowType(caseClass, caseClass.typeParams());
                     VariableNameSource ccUpdaterNameSource = new VariableNameSource();
-                    JMethod caseClassUpdaterMethod = caseClass.method(JMod.PUBLIC | JMod.FINAL, usedAcceptingInterfaceType, updaterName);
+                    JMethod caseClassUpdaterMethod = caseClass.method(JMod.PUBLIC | JMod.FINAL, updatedType, acceptingInterfaceUpdaterName);
                     Source.annotateNonnull(caseClassUpdaterMethod);
                     caseClassUpdaterMethod.annotate(Override.class);
                     if (field.isVarArg())
@@ -766,22 +1976,31 @@ public class FinalValueClassModel {
                     boolean isChanged = false;
                     JInvocation invocation = JExpr._new(usedCaseClassType);
                     for (JVar param: interfaceMethod1.params()) {
-                        JFieldVar argument = caseClass.fields().get(param.name());
+                        boolean isLazy = isLazyField(interfaceMethod1.name(), param.name());
                         if (field.isFieldValue(interfaceMethod1, param.name())) {
-                            invocation.arg(newValue);
+                            if (isLazy)
+                                invocation.arg(JExpr._null());
+                            IJExpression value = copiedArray(param.type(), newValue);
+                            IJExpression canonicalValue = canonicalValue(interfaceMethod1.name(), param.name(), field.type(), value);
+                            if (canonicalValue != value)
+                                caseClassUpdaterMethod.annotate(SuppressWarnings.class).param("value", "unchecked");
+                            invocation.arg(canonicalValue);
                             isChanged = true;
+                        } else if (isLazy) {
+                            // Lazy field is copied without evaluation, thunk is read first, see buildLazyField
+                            invocation.arg(JExpr.refthis(lazyThunkName(param.name())));
+                            invocation.arg(JExpr.refthis(param.name()));
                         } else {
-                            invocation.arg(JExpr.refthis(argument));
+                            invocation.arg(caseClassFieldRef(interfaceMethod1.name(), param.name()));
                         }
                     }
                     JVar param = interfaceMethod1.varParam();
                     if (param != null) {
-                        JFieldVar argument = caseClass.fields().get(param.name());
                         if (field.isFieldValue(interfaceMethod1, param.name())) {
-                            invocation.arg(newValue);
+                            invocation.arg(copiedArray(param.type(), newValue));
                             isChanged = true;
                         } else {
-                            invocation.arg(JExpr.refthis(argument));
+                            invocation.arg(caseClassFieldRef(interfaceMethod1.name(), param.name()));
                         }
                     }
                     if (isChanged)
@@ -792,47 +2011,93 @@ public class FinalValueClassModel {
             }
         }
 
+        void generateCachedMethod(CachedMethodConfiguration cachedMethod) {
+            JMethod method = environment.buildValueClassMethod(Source.toJMod(cachedMethod.accessLevel()) | JMod.FINAL, cachedMethod.name());
+            method.type(cachedMethod.type());
+            if (isError) {
+                method.body()._throw(JExpr._new(types._UnsupportedOperationException));
+            } else {
+                CachedValue cachedValue = cachedValues.get(cachedMethod.name());
+                Caching caching = cachedMethod.caching();
+                if (caching == Caching.NONE) {
+                    method.body()._return(cachedValueComputation(cachedMethod));
+                } else if (caching == Caching.PRECOMPUTE) {
+                    method.body()._return(JExpr.refthis(cachedValue.valueField()));
+                } else if (caching == Caching.SIMPLE) {
+                    VariableNameSource nameSource = new VariableNameSource();
+                    JFieldRef field = JExpr.refthis(cachedValue.valueField());
+                    JVar value = method.body().decl(cachedMethod.type(), nameSource.get("value"), field);
+                    JConditional _if = method.body()._if(value.eq(cachedValue.defaultValue()));
+                    _if._then().assign(value, cachedValueComputation(cachedMethod));
+                    _if._then().assign(field, value);
+                    method.body()._return(value);
+                } else if (caching == Caching.SYNCRONIZED) {
+                    JFieldRef flag = JExpr.refthis(cachedValue.flagField());
+                    JConditional _if1 = method.body()._if(flag.not());
+                    JSynchronizedBlock synchronizedBlock = _if1._then().synchronizedBlock(lock());
+                    JConditional _if2 = synchronizedBlock.body()._if(flag.not());
+                    // Value is written before volatile flag, so that it is visible to threads that observe the flag
+                    _if2._then().assign(JExpr.refthis(cachedValue.valueField()), cachedValueComputation(cachedMethod));
+                    _if2._then().assign(flag, JExpr.TRUE);
+                    method.body()._return(JExpr.refthis(cachedValue.valueField()));
+                } else
+                    throw new IllegalStateException("Unsupported caching: " + caching);
+            }
+        }
+
+        private IJExpression cachedValueComputation(CachedMethodConfiguration cachedMethod) {
+            // Cached methods are declared in wrapper class, and every instance available to user code is wrapper instance
+            AbstractJClass usedValueClassType = environment.wrappedValueClassTypeInsideValueClass();
+            return JExpr.cast(usedValueClassType, JExpr._this()).invoke(cachedMethod.computationMethodName());
+        }
+
         void generatePredicate(String name, PredicateConfigutation predicate) {
             JMethod predicateMethod = environment.buildValueClassMethod(Source.toJMod(predicate.accessLevel()) | JMod.FINAL, name);
             predicateMethod.type(types._boolean);
             if (isError) {
                 predicateMethod.body()._throw(JExpr._new(types._UnsupportedOperationException));
             } else {
-                JMethod implementation = environment.buildAcceptingInterfaceMethod(JMod.PUBLIC, name);
-                implementation.type(types._boolean);
-
-                predicateMethod.body()._return(JExpr.refthis(acceptorField).invoke(implementation));
-
+                IJExpression result = JExpr.FALSE;
+                boolean isFirst = true;
                 for (JMethod interfaceMethod1: environment.visitorDefinition().methodDefinitions()) {
-                    JDefinedClass caseClass = caseClasses.get(interfaceMethod1.name());
-                    predicateMethod = caseClass.method(JMod.PUBLIC | JMod.FINAL, types._boolean, name);
-                    predicateMethod.annotate(Override.class);
-
-                    boolean result = predicate.isTrueFor(interfaceMethod1);
-                    predicateMethod.body()._return(JExpr.lit(result));
+                    if (predicate.isTrueFor(interfaceMethod1)) {
+                        IJExpression isCase = JExpr.refthis(tagField).eq(JExpr.lit(caseTag(interfaceMethod1.name())));
+                        result = isFirst ? isCase : result.cor(isCase);
+                        isFirst = false;
+                    }
                 }
+                predicateMethod.body()._return(result);
             }
         }
 
         void buildEqualsMethod() {
-            if (!isError) {
+            if (!isError && environment.isEnumLike()) {
                 AbstractJClass[] typeParams = new AbstractJClass[environment.getValueTypeParameters().size()];
                 for (int i = 0; i < typeParams.length; i++)
                     typeParams[i] = types.createWildcard();
-                AbstractJClass usedValueClassType = environment.wrappedValueClassType(typeParams);
                 AbstractJClass unwrappedUsedValueClassType = environment.unwrappedValueClassType(typeParams);
-                AbstractJClass usedAcceptorType = environment.acceptingInterfaceType(typeParams);
 
-                VisitorDefinition.VisitorUsage usedVisitor = environment.visitor(usedValueClassType, types._Boolean, types._RuntimeException);
-                String equalsImplementationMethodName = Source.decapitalize(environment.valueClassName()) + "Equals";
-                JMethod equalsImplementationMethod = environment.buildAcceptingInterfaceMethod(JMod.PUBLIC, equalsImplementationMethodName);
-                equalsImplementationMethod.type(types._boolean);
+                JMethod equalsMethod = environment.buildValueClassMethod(JMod.PUBLIC | JMod.FINAL, "equals");
+                equalsMethod.type(types._boolean);
                 VariableNameSource nameSource = new VariableNameSource();
-                equalsImplementationMethod.param(usedAcceptorType, nameSource.get("thatAcceptor"));
+                equalsMethod.annotate(Override.class);
+                JVar thatObject = equalsMethod.param(types._Object, nameSource.get("thatObject"));
+                JConditional _if = equalsMethod.body()._if(JExpr._this().eq(thatObject));
+                _if._then()._return(JExpr.TRUE);
+                JConditional elseif = _if._elseif(thatObject._instanceof(unwrappedUsedValueClassType.erasure()).not());
+                elseif._then()._return(JExpr.FALSE);
+                JBlock _else = elseif._else();
+                JVar that = _else.decl(unwrappedUsedValueClassType, nameSource.get("that"), JExpr.cast(unwrappedUsedValueClassType, thatObject));
+                _else._return(JExpr.refthis(tagField).eq(that.ref(tagField)));
+            } else if (!isError) {
+                AbstractJClass[] typeParams = new AbstractJClass[environment.getValueTypeParameters().size()];
+                for (int i = 0; i < typeParams.length; i++)
+                    typeParams[i] = types.createWildcard();
+                AbstractJClass unwrappedUsedValueClassType = environment.unwrappedValueClassType(typeParams);
 
                 JMethod equalsMethod = environment.buildValueClassMethod(JMod.PUBLIC | JMod.FINAL, "equals");
                 equalsMethod.type(types._boolean);
-                nameSource = new VariableNameSource();
+                VariableNameSource nameSource = new VariableNameSource();
                 equalsMethod.annotate(Override.class);
                 JVar thatObject = equalsMethod.param(types._Object, nameSource.get("thatObject"));
                 JConditional _if = equalsMethod.body()._if(JExpr._this().eq(thatObject));
@@ -841,101 +2106,66 @@ public class FinalValueClassModel {
                 elseif._then()._return(JExpr.FALSE);
                 JBlock _else = elseif._else();
                 JVar that = _else.decl(unwrappedUsedValueClassType, nameSource.get("that"), JExpr.cast(unwrappedUsedValueClassType, thatObject));
-                JInvocation invocation1 = JExpr.refthis(acceptorField).invoke(equalsImplementationMethod);
-                invocation1.arg(that.ref(acceptorField));
-                IJExpression hashCodeResult = invocation1;
                 if (environment.hashCodeCaching() == Caching.PRECOMPUTE) {
-                    hashCodeResult = JExpr.refthis(hashCodeCachedValueField).eq(that.ref(hashCodeCachedValueField)).cand(invocation1);
+                    JConditional hashCodeCheck = _else._if(JExpr.refthis(hashCodeCachedValueField).ne(that.ref(hashCodeCachedValueField)));
+                    hashCodeCheck._then()._return(JExpr.FALSE);
+                } else if (environment.hashCodeCaching().enabled()) {
+                    // Lazily cached hash codes can be compared only when both are already computed
+                    JVar thisHashCode = _else.decl(types._int, nameSource.get("thisHashCode"), JExpr.refthis(hashCodeCachedValueField));
+                    JVar thatHashCode = _else.decl(types._int, nameSource.get("thatHashCode"), that.ref(hashCodeCachedValueField));
+                    JConditional hashCodeCheck = _else._if(thisHashCode.ne0().cand(thatHashCode.ne0()).cand(thisHashCode.ne(thatHashCode)));
+                    hashCodeCheck._then()._return(JExpr.FALSE);
                 }
-                _else._return(hashCodeResult);
-
-                for (MethodUsage interfaceMethod1: usedVisitor.methods()) {
-                    JDefinedClass caseClass = caseClasses.get(interfaceMethod1.name());
-                    equalsImplementationMethod = caseClass.method(JMod.PUBLIC | JMod.FINAL, types._boolean, equalsImplementationMethod.name());
-                    equalsImplementationMethod.annotate(Override.class);
-                    nameSource = new VariableNameSource();
-                    JVar thatAcceptor = equalsImplementationMethod.param(usedAcceptorType, nameSource.get("thatAcceptor"));
-
-                    String equalsCaseMethodName = equalsImplementationMethod.name() + Source.capitalize(interfaceMethod1.name());
-                    JMethod equalsCaseAbstractMethod = environment.buildAcceptingInterfaceMethod(JMod.PUBLIC, equalsCaseMethodName);
-                    equalsCaseAbstractMethod.type(types._boolean);
-                    nameSource = new VariableNameSource();
-
-                    JInvocation equalsCaseInvocation = thatAcceptor.invoke(equalsCaseAbstractMethod);
-                    int methodTypeArgumentIndex = 0;
-                    for (JTypeVar visitorTypeParam: interfaceMethod1.typeParams()) {
-                        JTypeVar typeParam = equalsCaseAbstractMethod.generify(visitorTypeParam.name());
-                        typeParam.boundLike(visitorTypeParam);
-                        equalsCaseInvocation.narrow(caseClass.typeParams()[environment.getValueTypeParameters().size() + methodTypeArgumentIndex]);
-                        methodTypeArgumentIndex++;
-                    }
-                    for (VariableDeclaration param1: interfaceMethod1.params()) {
-                        AbstractJType argumentType = param1.type().declarable();
-                        equalsCaseAbstractMethod.param(param1.mods().getValue(), argumentType, nameSource.get(param1.name()));
-                        equalsCaseInvocation.arg(JExpr.refthis(caseClass.fields().get(param1.name())));
-                    }
-                    VariableDeclaration varParam1 = interfaceMethod1.varParam();
-                    if (varParam1 != null) {
-                        AbstractJType argumentType = varParam1.type().elementType().declarable();
-                        equalsCaseAbstractMethod.varParam(varParam1.mods().getValue(), argumentType, nameSource.get(varParam1.name()));
-                        equalsCaseInvocation.arg(JExpr.refthis(caseClass.fields().get(varParam1.name())));
+                JConditional tagCheck = _else._if(JExpr.refthis(tagField).ne(that.ref(tagField)));
+                tagCheck._then()._return(JExpr.FALSE);
+                // Tags are equal, so both acceptors are instances of the same case class
+                JSwitch _switch = _else._switch(JExpr.refthis(tagField));
+                for (JMethod interfaceMethod: environment.visitorDefinition().methodDefinitions()) {
+                    JBlock caseBody = _switch._case(JExpr.lit(caseTag(interfaceMethod.name()))).body();
+                    VariableNameSource caseNameSource = nameSource.forBlock();
+                    IJExpression thisAcceptor = null;
+                    IJExpression thatAcceptor = null;
+                    if (hasCaseClassFields(interfaceMethod)) {
+                        AbstractJClass thisCaseClassType = usedCaseClassTypeInsideValueClass(interfaceMethod.name());
+                        AbstractJClass thatCaseClassType = wildcardCaseClassType(interfaceMethod.name());
+                        thisAcceptor = caseBody.decl(thisCaseClassType, caseNameSource.get("thisCase"), JExpr.cast(thisCaseClassType, acceptorRef(JExpr._this())));
+                        thatAcceptor = caseBody.decl(thatCaseClassType, caseNameSource.get("thatCase"), JExpr.cast(thatCaseClassType, acceptorRef(that)));
                     }
-                    equalsImplementationMethod.body()._return(equalsCaseInvocation);
-
-                    for (MethodUsage caseClassInterfaceMethod: usedVisitor.methods()) {
-                        caseClass = caseClasses.get(caseClassInterfaceMethod.name());
-                        boolean isSameCase = interfaceMethod1.name().equals(caseClassInterfaceMethod.name());
-
-                        JMethod equalsCaseImplementationMethod = caseClass.method(JMod.PUBLIC, types._boolean, equalsCaseMethodName);
-                        equalsCaseImplementationMethod.annotate(Override.class);
-                        for (JTypeVar visitorTypeParam: interfaceMethod1.typeParams()) {
-                            JTypeVar typeParam = equalsCaseImplementationMethod.generify(visitorTypeParam.name());
-                            typeParam.boundLike(visitorTypeParam);
-                        }
-                        nameSource = new VariableNameSource();
-
-                        EqualsMethod body = new EqualsMethod(types, equalsCaseImplementationMethod.body(), nameSource, environment.floatCustomization());
-
-                        int i = 0;
-                        boolean generatedReturn = false;
-                        VariableDeclaration varParam = interfaceMethod1.varParam();
-                        for (VariableDeclaration param: interfaceMethod1.params()) {
-                            AbstractJType argumentType = param.type().declarable();
-                            JVar argument1 = equalsCaseImplementationMethod.param(param.mods().getValue(), argumentType, nameSource.get(param.name()));
-                            if (isSameCase) {
-                                JFieldVar argument2 = caseClass.fields().get(param.name());
-                                boolean isLast = varParam == null && i == interfaceMethod1.params().size() - 1;
-                                if (!isLast) {
-                                    if (Source.isNullable(param))
-                                        body.appendNullableValue(argumentType, argument1, JExpr.refthis(argument2));
-                                    else
-                                        body.appendNotNullValue(argumentType, argument1, JExpr.refthis(argument2));
-                                } else {
-                                    if (Source.isNullable(param))
-                                        body.appendNullableValueAndReturn(argumentType, argument1, JExpr.refthis(argument2));
-                                    else
-                                        body.appendNotNullValueAndReturn(argumentType, argument1, JExpr.refthis(argument2));
-                                    generatedReturn = true;
-                                }
-                            }
-                            i++;
-                        }
-                        if (varParam != null) {
-                            AbstractJType argumentType = varParam.type().elementType().declarable();
-                            JVar varArgument1 = equalsCaseImplementationMethod.varParam(varParam.mods().getValue(), argumentType, nameSource.get(varParam.name()));
-                            if (isSameCase) {
-                                JFieldVar varArgument2 = caseClass.fields().get(varParam.name());
-                                if (Source.isNullable(varParam))
-                                    body.appendNullableValueAndReturn(varArgument1.type(), varArgument1, JExpr.refthis(varArgument2));
-                                else
-                                    body.appendNotNullValueAndReturn(varArgument1.type(), varArgument1, JExpr.refthis(varArgument2));
-                                generatedReturn = true;
-                            }
+                    EqualsMethod body = new EqualsMethod(types, caseBody, caseNameSource, environment.floatCustomization());
+                    List<JVar> params = equalsOrderedCaseParams(interfaceMethod);
+                    boolean isReturned = false;
+                    int i = 0;
+                    for (JVar param: params) {
+                        AbstractJType fieldType = caseClassFieldType(interfaceMethod.name(), param.name());
+                        IJExpression field1 = caseFieldRefInsideValueClass(interfaceMethod.name(), param.name(), JExpr._this(), thisAcceptor);
+                        IJExpression field2 = caseFieldRefInsideValueClass(interfaceMethod.name(), param.name(), that, thatAcceptor);
+                        FieldEquality equality = fieldEquality(interfaceMethod.name(), param.name());
+                        boolean isLast = i == params.size() - 1;
+                        if (equality == FieldEquality.IDENTITY) {
+                            body.appendIdentityValue(field1, field2);
+                        } else if (equality == FieldEquality.SHALLOW) {
+                            if (Source.isNullable(param))
+                                body.appendNullableShallowArray(fieldType, field1, field2);
+                            else
+                                body.appendNotNullShallowArray(fieldType, field1, field2);
+                        } else if (!isLast) {
+                            if (Source.isNullable(param))
+                                body.appendNullableValue(fieldType, field1, field2);
+                            else
+                                body.appendNotNullValue(fieldType, field1, field2);
+                        } else {
+                            if (Source.isNullable(param))
+                                body.appendNullableValueAndReturn(fieldType, field1, field2);
+                            else
+                                body.appendNotNullValueAndReturn(fieldType, field1, field2);
+                            isReturned = true;
                         }
-                        if (!generatedReturn)
-                            equalsCaseImplementationMethod.body()._return(isSameCase ? JExpr.TRUE : JExpr.FALSE);
+                        i++;
                     }
+                    if (!isReturned)
+                        caseBody._return(JExpr.TRUE);
                 }
+                _switch._default().body()._throw(unexpectedTagException());
             }
         }
 
@@ -945,110 +2175,113 @@ public class FinalValueClassModel {
             compareToMethod.annotate(Override.class);
             VariableNameSource compareToMethodNameSource = new VariableNameSource();
             AbstractJClass usedValueClassType = environment.wrappedValueClassTypeInsideValueClass();
-            VisitorDefinition.VisitorUsage usedVisitor = environment.visitor(usedValueClassType, types._Integer, types._RuntimeException);
             AbstractJClass unwrappedUsedValueClassType = environment.unwrappedValueClassTypeInsideValueClass();
             JVar that = compareToMethod.param(usedValueClassType, compareToMethodNameSource.get("that"));
 
             if (isError) {
                 compareToMethod.body()._throw(JExpr._new(types._UnsupportedOperationException));
+            } else if (environment.isEnumLike()) {
+                JVar unwrappedVariable = !environment.wrappingEnabled()? that : compareToMethod.body().decl(unwrappedUsedValueClassType, compareToMethodNameSource.get("unwrapped"), that);
+                JFieldRef thisTag = JExpr.refthis(tagField);
+                JFieldRef thatTag = unwrappedVariable.ref(tagField);
+                compareToMethod.body()._return(JOp.cond(thisTag.lt(thatTag), JExpr.lit(-1), JOp.cond(thisTag.eq(thatTag), JExpr.lit(0), JExpr.lit(1))));
             } else {
-                AbstractJClass usedAcceptorType = environment.acceptingInterfaceTypeInsideValueClass();
-                String compareToMethodImplementationString = Source.decapitalize(environment.valueClassName()) + "ComapareTo";
-                JMethod compareToMethodImplementation = environment.buildAcceptingInterfaceMethod(JMod.PUBLIC, compareToMethodImplementationString);
-                compareToMethodImplementation.type(types._int);
-                VariableNameSource nameSource = new VariableNameSource();
-                compareToMethodImplementation.param(usedAcceptorType, nameSource.get("thatAcceptor"));
-
                 JVar unwrappedVariable = !environment.wrappingEnabled()? that : compareToMethod.body().decl(unwrappedUsedValueClassType, compareToMethodNameSource.get("unwrapped"), that);
-                JInvocation invocation1 = JExpr.refthis(acceptorField).invoke(compareToMethodImplementation);
-                invocation1.arg(unwrappedVariable.ref(acceptorField));
-                compareToMethod.body()._return(invocation1);
-
-                JMethod[] methods = new JMethod[environment.visitorDefinition().methodDefinitions().size()];
-                methods = environment.visitorDefinition().methodDefinitions().toArray(methods);
-                for (int interfaceMethod1Index = 0; interfaceMethod1Index < methods.length; interfaceMethod1Index++) {
-                    JMethod interfaceMethod1 = methods[interfaceMethod1Index];
-                    JDefinedClass caseClass = caseClasses.get(interfaceMethod1.name());
-                    compareToMethodImplementation = caseClass.method(JMod.PUBLIC | JMod.FINAL, types._int, compareToMethodImplementation.name());
-                    compareToMethodImplementation.annotate(Override.class);
-                    nameSource = new VariableNameSource();
-                    JVar thatAcceptor = compareToMethodImplementation.param(usedAcceptorType, nameSource.get("thatAcceptor"));
-
-                    String compareToCaseMethodName = compareToMethodImplementation.name() + Source.capitalize(interfaceMethod1.name());
-                    JMethod compareToCaseMethod = environment.buildAcceptingInterfaceMethod(JMod.PUBLIC, compareToCaseMethodName);
-                    compareToCaseMethod.type(types._int);
-                    nameSource = new VariableNameSource();
-
-                    JInvocation compareToCaseInvocation = thatAcceptor.invoke(compareToCaseMethod);
-                    for (JVar param1: interfaceMethod1.params()) {
-                        AbstractJType argumentType = usedVisitor.getNarrowedType(param1.type()).declarable();
-                        compareToCaseMethod.param(param1.mods().getValue(), argumentType, nameSource.get(param1.name()));
-                        compareToCaseInvocation.arg(JExpr.refthis(caseClass.fields().get(param1.name())));
-                    }
-                    JVar varParam1 = interfaceMethod1.varParam();
-                    if (varParam1 != null) {
-                        AbstractJType argumentType = usedVisitor.getNarrowedType(varParam1.type().elementType()).declarable();
-                        compareToCaseMethod.varParam(varParam1.mods().getValue(), argumentType, nameSource.get(varParam1.name()));
-                        compareToCaseInvocation.arg(JExpr.refthis(caseClass.fields().get(varParam1.name())));
-                    }
-                    compareToMethodImplementation.body()._return(compareToCaseInvocation);
-
-                    for (int interfaceMethod2Index = 0; interfaceMethod2Index < methods.length; interfaceMethod2Index++) {
-                        JMethod interfaceMethod2 = methods[interfaceMethod2Index];
-                        caseClass = caseClasses.get(interfaceMethod2.name());
-                        compareToCaseMethod = caseClass.method(JMod.PUBLIC, types._int, compareToCaseMethod.name());
-                        compareToCaseMethod.annotate(Override.class);
-                        nameSource = new VariableNameSource();
-
-                        boolean isSameCase = interfaceMethod1Index == interfaceMethod2Index;
-                        CompareToMethod compareToMethodModel = new CompareToMethod(types, compareToCaseMethod.body(), nameSource, environment.floatCustomization());
-                        CompareToMethod.Body body = null;
-
-                        JVar varParam = interfaceMethod1.varParam();
-                        for (JVar param: interfaceMethod1.params()) {
-                            AbstractJType argumentType = usedVisitor.getNarrowedType(param.type()).declarable();
-                            JVar argument1 = compareToCaseMethod.param(param.mods().getValue(), argumentType, nameSource.get(param.name()));
-                            if (isSameCase) {
-                                if (body == null)
-                                    body = compareToMethodModel.createBody();
-                                JFieldVar argument2 = caseClass.fields().get(param.name());
-                                if (Source.isNullable(param))
-                                    body.appendNullableValue(argumentType, argument1, JExpr.refthis(argument2));
-                                else
-                                    body.appendNotNullValue(argumentType, argument1, JExpr.refthis(argument2));
-                            }
+                JFieldRef thisTag = JExpr.refthis(tagField);
+                JFieldRef thatTag = unwrappedVariable.ref(tagField);
+                JConditional tagCheck = compareToMethod.body()._if(thisTag.ne(thatTag));
+                tagCheck._then()._return(JOp.cond(thisTag.lt(thatTag), JExpr.lit(-1), JExpr.lit(1)));
+                // Tags are equal, so both acceptors are instances of the same case class
+                JSwitch _switch = compareToMethod.body()._switch(thisTag);
+                for (JMethod interfaceMethod: environment.visitorDefinition().methodDefinitions()) {
+                    JBlock caseBody = _switch._case(JExpr.lit(caseTag(interfaceMethod.name()))).body();
+                    List<JVar> params = comparedCaseParams(interfaceMethod);
+                    if (!params.isEmpty()) {
+                        VariableNameSource caseNameSource = compareToMethodNameSource.forBlock();
+                        IJExpression thisAcceptor = null;
+                        IJExpression thatAcceptor = null;
+                        if (hasCaseClassFields(interfaceMethod)) {
+                            AbstractJClass caseClassType = usedCaseClassTypeInsideValueClass(interfaceMethod.name());
+                            thisAcceptor = caseBody.decl(caseClassType, caseNameSource.get("thisCase"), JExpr.cast(caseClassType, acceptorRef(JExpr._this())));
+                            thatAcceptor = caseBody.decl(caseClassType, caseNameSource.get("thatCase"), JExpr.cast(caseClassType, acceptorRef(unwrappedVariable)));
                         }
-                        if (varParam != null) {
-                            AbstractJType argumentType = usedVisitor.getNarrowedType(varParam.type().elementType()).declarable();
-                            JVar varArgument1 = compareToCaseMethod.varParam(varParam.mods().getValue(), argumentType, nameSource.get(varParam.name()));
-                            if (isSameCase) {
-                                if (body == null)
-                                    body = compareToMethodModel.createBody();
-                                JFieldVar varArgument2 = caseClass.fields().get(varParam.name());
-                                if (Source.isNullable(varParam))
-                                    body.appendNullableValue(varArgument1.type(), varArgument1, JExpr.refthis(varArgument2));
-                                else
-                                    body.appendNotNullValue(varArgument1.type(), varArgument1, JExpr.refthis(varArgument2));
-                            }
+                        CompareToMethod compareToMethodModel = new CompareToMethod(types, caseBody, caseNameSource, environment.floatCustomization());
+                        CompareToMethod.Body body = compareToMethodModel.createBody();
+                        for (JVar param: params) {
+                            AbstractJType fieldType = caseClassFieldType(interfaceMethod.name(), param.name());
+                            IJExpression field1 = caseFieldRefInsideValueClass(interfaceMethod.name(), param.name(), JExpr._this(), thisAcceptor);
+                            IJExpression field2 = caseFieldRefInsideValueClass(interfaceMethod.name(), param.name(), unwrappedVariable, thatAcceptor);
+                            if (Source.isNullable(param))
+                                body.appendNullableValue(fieldType, field1, field2);
+                            else
+                                body.appendNotNullValue(fieldType, field1, field2);
                         }
-                        int result = interfaceMethod1Index < interfaceMethod2Index ? -1 : (interfaceMethod1Index > interfaceMethod2Index ? 1 : 0);
-                        compareToCaseMethod.body()._return(JExpr.lit(result));
                     }
+                    caseBody._return(JExpr.lit(0));
                 }
+                _switch._default().body()._throw(unexpectedTagException());
             }
         }
 
         void buildReadObjectMethod() {
             if (!isError && environment.hashCodeCaching() == Caching.PRECOMPUTE) {
                 JMethod method = environment.buildValueClassMethod(JMod.PRIVATE, "readObject");
-                method._throws(types._IOException);
-                method._throws(types._ClassNotFoundException);
-                VariableNameSource variableNameSource = new VariableNameSource();
-                JVar inputStream = method.param(types._ObjectInputStream, variableNameSource.get("input"));
-                JBlock body = method.body();
-                body.invoke(inputStream, "defaultReadObject");
-                JInvocation invocation = JExpr.refthis(acceptorField).invoke(hashCodeAcceptorMethodName());
-                body.assign(JExpr.refthis(hashCodeCachedValueField), invocation);
+                JBlock body = buildReadObjectMethodBody(method);
+                IJExpression invocation = caseDispatchInvocation(hashCodeAcceptorMethodName(), JExpr.refthis(acceptorField), JExpr.refthis(tagField));
+                if (!environment.caseClassesExtendValueClass())
+                    body.assign(JExpr.refthis(hashCodeCachedValueField), invocation);
+                else {
+                    // Value class fields are deserialized before case class fields,
+                    // so hash code of case object itself can be recomputed only by case class
+                    JConditional _if = body._if(JExpr.refthis(acceptorField).ne(JExpr._null()));
+                    _if._then().assign(JExpr.refthis(hashCodeCachedValueField), invocation);
+                    buildCaseReadObjectMethods();
+                }
+            }
+        }
+
+        private void buildCaseReadObjectMethods() {
+            for (JDefinedClass caseClass: caseClasses.values()) {
+                JMethod caseReadObjectMethod = caseClass.method(JMod.PRIVATE, types._void, "readObject");
+                JBlock caseBody = buildReadObjectMethodBody(caseReadObjectMethod);
+                JInvocation caseInvocation = JExpr.invoke(hashCodeAcceptorMethodName());
+                caseBody.assign(JExpr._super().ref(hashCodeCachedValueField), caseInvocation);
+            }
+        }
+
+        private JBlock buildReadObjectMethodBody(JMethod method) {
+            method._throws(types._IOException);
+            method._throws(types._ClassNotFoundException);
+            VariableNameSource variableNameSource = new VariableNameSource();
+            JVar inputStream = method.param(types._ObjectInputStream, variableNameSource.get("input"));
+            JBlock body = method.body();
+            body.invoke(inputStream, "defaultReadObject");
+            return body;
+        }
+
+        // Method is protected, so that it's inherited by wrapper class and case classes
+        void buildReadResolveMethod() {
+            if (!isError && environment.isEnumLike()) {
+                JMethod method = environment.buildValueClassMethod(JMod.PROTECTED, "readResolve");
+                method.type(types._Object);
+                JSwitch _switch = method.body()._switch(JExpr.refthis(tagField));
+                for (JMethod interfaceMethod: environment.visitorDefinition().methodDefinitions()) {
+                    JBlock caseBody = _switch._case(JExpr.lit(caseTag(interfaceMethod.name()))).body();
+                    caseBody._return(singletonInstanceFields.get(interfaceMethod.name()));
+                }
+                _switch._default().body()._throw(unexpectedTagException());
+            } else if (!isError && internTableField != null) {
+                JMethod method = environment.buildValueClassMethod(JMod.PROTECTED, "readResolve");
+                method.type(types._Object);
+                if (environment.wrappingEnabled()) {
+                    // Case objects are deserialized as part of wrapper objects and are never interned themselves
+                    AbstractJClass usedValueClassType = environment.wrappedValueClassTypeInsideValueClass();
+                    JConditional _if = method.body()._if(JExpr._this()._instanceof(usedValueClassType.erasure()).not());
+                    _if._then()._return(JExpr._this());
+                }
+                JInvocation invocation = internTableField.invoke("intern");
+                invocation.arg(JExpr._this());
+                method.body()._return(invocation);
             }
         }
 
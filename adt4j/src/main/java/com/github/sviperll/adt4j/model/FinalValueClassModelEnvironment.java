@@ -31,6 +31,7 @@
 package com.github.sviperll.adt4j.model;
 
 import com.github.sviperll.adt4j.Caching;
+import com.github.sviperll.adt4j.Interning;
 import com.github.sviperll.adt4j.MemberAccess;
 import com.github.sviperll.adt4j.model.config.FloatCustomization;
 import com.github.sviperll.adt4j.model.config.ValueClassConfiguration;
@@ -41,6 +42,7 @@ import com.helger.jcodemodel.AbstractJClass;
 import com.helger.jcodemodel.AbstractJType;
 import com.helger.jcodemodel.EClassType;
 import com.helger.jcodemodel.IJExpression;
+import com.helger.jcodemodel.JBlock;
 import com.helger.jcodemodel.JClassAlreadyExistsException;
 import com.helger.jcodemodel.JDefinedClass;
 import com.helger.jcodemodel.JFieldVar;
@@ -98,6 +100,28 @@ public class FinalValueClassModelEnvironment {
         return configuration.factoryMethodAccessLevel();
     }
 
+    boolean isValueClassMethodNameUsed(String name) {
+        for (JMethod method: valueClass.methods()) {
+            if (method.name().equals(name))
+                return true;
+        }
+        return false;
+    }
+
+    boolean isValueClassNestedClassNameUsed(String name) {
+        if (valueClass.name().equals(name))
+            return true;
+        for (JDefinedClass nestedClass: valueClass.classes()) {
+            if (nestedClass.name().equals(name))
+                return true;
+        }
+        return false;
+    }
+
+    boolean isValueClassFieldNameUsed(String name) {
+        return valueClass.fields().containsKey(name);
+    }
+
     JMethod buildValueClassMethod(int mods, String name) {
         return valueClass.method(mods, valueClass.owner().VOID, name);
     }
@@ -146,6 +170,10 @@ public class FinalValueClassModelEnvironment {
     //    return configuration.visitorDefinition().getExceptionTypeParameter();
     // }
 
+    JBlock valueClassStaticInitializer() {
+        return valueClass.init();
+    }
+
     JMethod buildValueClassConstructor(int mods) {
         return valueClass.constructor(mods);
     }
@@ -158,6 +186,14 @@ public class FinalValueClassModelEnvironment {
         return configuration.acceptMethodAccessLevel();
     }
 
+    boolean primitiveVisitors() {
+        return configuration.primitiveVisitors();
+    }
+
+    boolean contextVisitors() {
+        return configuration.contextVisitors();
+    }
+
     AbstractJClass wrappedValueClassTypeInsideValueClass() {
         return Source.narrowType(configuration.wrapValueClass(valueClass), valueClass.typeParams());
     }
@@ -182,10 +218,42 @@ public class FinalValueClassModelEnvironment {
         return configuration.wrappingEnabled();
     }
 
+    boolean caseClassesExtendValueClass() {
+        return configuration.caseClassesExtendValueClass();
+    }
+
+    boolean isEnumLike() {
+        return configuration.isEnumLike();
+    }
+
+    boolean isOptionalShaped() {
+        return configuration.isOptionalShaped();
+    }
+
     FloatCustomization floatCustomization() {
         return configuration.floatCustomization();
     }
 
+    Interning interning() {
+        return configuration.interning();
+    }
+
+    int internTableSize() {
+        return configuration.internTableSize();
+    }
+
+    boolean packFields() {
+        return configuration.packFields();
+    }
+
+    boolean copyArrays() {
+        return configuration.copyArrays();
+    }
+
+    boolean fingerprints() {
+        return configuration.fingerprints();
+    }
+
     VisitorDefinition visitorDefinition() {
         return configuration.visitorDefinition();
     }
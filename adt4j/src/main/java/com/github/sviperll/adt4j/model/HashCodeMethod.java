@@ -29,8 +29,12 @@
  */
 package com.github.sviperll.adt4j.model;
 
+import com.github.sviperll.adt4j.FloatEquality;
+import com.github.sviperll.adt4j.HashAlgorithm;
+import com.github.sviperll.adt4j.model.config.FloatCustomization;
 import com.github.sviperll.adt4j.model.util.Types;
 import com.github.sviperll.adt4j.model.util.VariableNameSource;
+import com.helger.jcodemodel.AbstractJClass;
 import com.helger.jcodemodel.AbstractJType;
 import com.helger.jcodemodel.IJExpression;
 import com.helger.jcodemodel.JBlock;
@@ -48,12 +52,16 @@ import com.helger.jcodemodel.JVar;
 class HashCodeMethod {
     private final Types types;
     private final int hashCodeBase;
+    private final HashAlgorithm hashAlgorithm;
+    private final FloatCustomization floatCustomization;
     private final JBlock methodBody;
     private final VariableNameSource methodNameSource;
 
-    HashCodeMethod(Types types, int hashCodeBase, JBlock methodBody, VariableNameSource methodNameSource) {
+    HashCodeMethod(Types types, int hashCodeBase, HashAlgorithm hashAlgorithm, FloatCustomization floatCustomization, JBlock methodBody, VariableNameSource methodNameSource) {
         this.types = types;
         this.hashCodeBase = hashCodeBase;
+        this.hashAlgorithm = hashAlgorithm;
+        this.floatCustomization = floatCustomization;
         this.methodBody = methodBody;
         this.methodNameSource = methodNameSource;
     }
@@ -87,37 +95,113 @@ class HashCodeMethod {
             }
         }
 
+        void appendIdentityValue(IJExpression value) {
+            JInvocation invocation = types._System.staticInvoke("identityHashCode");
+            invocation.arg(value);
+            appendNotNullValue(types._int, invocation);
+        }
+
+        void appendNullableShallowArray(AbstractJType type, IJExpression value) {
+            JConditional _if = body._if(value.eq(JExpr._null()));
+            Body thenBody = new Body(result, _if._then(), nameSource);
+            thenBody.appendNotNullValue(types._int, JExpr.lit(0));
+            Body elseBody = new Body(result, _if._else(), nameSource);
+            elseBody.appendNotNullArray(type, value, true);
+        }
+
+        void appendNotNullShallowArray(AbstractJType type, IJExpression value) {
+            appendNotNullArray(type, value, true);
+        }
+
+        private void appendNotNullArray(AbstractJType type, IJExpression value, boolean isShallow) {
+            if (EqualsMethod.isArraysMethodApplicable(type, isShallow, floatCustomization)) {
+                JInvocation invocation = types._Arrays.staticInvoke("hashCode");
+                invocation.arg(value);
+                appendNotNullValue(types._int, invocation);
+            } else {
+                appendNotNullArrayElements(type, value, isShallow);
+            }
+        }
+
+        private void appendNotNullArrayElements(AbstractJType type, IJExpression value, boolean isShallow) {
+            VariableNameSource localNames = nameSource.forBlock();
+            JForLoop _for = body._for();
+            JVar i = _for.init(types._int, localNames.get("i"), JExpr.lit(0));
+            _for.test(i.lt(value.ref("length")));
+            _for.update(i.incr());
+            Body forBody = new Body(result, _for.body(), localNames);
+            if (type.elementType().isReference() && isShallow)
+                forBody.appendIdentityValue(value.component(i));
+            else if (type.elementType().isReference())
+                forBody.appendNullableValue(type.elementType(), value.component(i));
+            else
+                forBody.appendNotNullValue(type.elementType(), value.component(i));
+        }
+
         void appendNotNullValue(AbstractJType type, IJExpression value) {
             if (type.isArray()) {
-                VariableNameSource localNames = nameSource.forBlock();
-                JForLoop _for = body._for();
-                JVar i = _for.init(types._int, localNames.get("i"), JExpr.lit(0));
-                _for.test(i.lt(value.ref("length")));
-                _for.update(i.incr());
-                Body forBody = new Body(result, _for.body(), localNames);
-                if (type.elementType().isReference())
-                    forBody.appendNullableValue(type.elementType(), value.component(i));
-                else
-                    forBody.appendNotNullValue(type.elementType(), value.component(i));
+                appendNotNullArray(type, value, false);
             } else if (!type.isPrimitive()) {
                 appendNotNullValue(types._int, value.invoke("hashCode"));
-            } else if (type.name().equals("double")) {
-                JInvocation invocation = types._Double.staticInvoke("doubleToLongBits");
-                invocation.arg(value);
-                appendNotNullValue(types._long, invocation);
-            } else if (type.name().equals("float")) {
-                JInvocation invocation = types._Float.staticInvoke("floatToIntBits");
-                invocation.arg(value);
-                appendNotNullValue(types._int, invocation);
+            } else if (type.name().equals("double") || type.name().equals("float")) {
+                appendFloatingPointValue(type, value);
             } else if (type.name().equals("boolean")) {
                 appendNotNullValue(types._int, JOp.cond(value, JExpr.lit(0), JExpr.lit(1)));
+            } else if (type.name().equals("long") && types.hasPrimitiveHashCodeMethods()) {
+                JInvocation invocation = types._Long.staticInvoke("hashCode");
+                invocation.arg(value);
+                appendNotNullValue(types._int, invocation);
             } else if (type.name().equals("long")) {
                 appendNotNullValue(types._int, JExpr.cast(types._int, value.xor(value.shrz(JExpr.lit(32)))));
+            } else if (hashAlgorithm == HashAlgorithm.MURMUR3) {
+                // MurmurHash3 mixing of single 32-bit block
+                body.assign(result, result.xor(rotateLeft(value.mul(JExpr.lit(0xcc9e2d51)), 15).mul(JExpr.lit(0x1b873593))));
+                body.assign(result, rotateLeft(result, 13).mul(JExpr.lit(5)).plus(JExpr.lit(0xe6546b64)));
             } else {
                 body.assign(result, result.mul(JExpr.lit(hashCodeBase)).plus(value));
             }
         }
 
+        void appendFinalization() {
+            if (hashAlgorithm != HashAlgorithm.POLYNOMIAL) {
+                // MurmurHash3 finalizer
+                body.assign(result, result.xor(result.shrz(JExpr.lit(16))));
+                body.assign(result, result.mul(JExpr.lit(0x85ebca6b)));
+                body.assign(result, result.xor(result.shrz(JExpr.lit(13))));
+                body.assign(result, result.mul(JExpr.lit(0xc2b2ae35)));
+                body.assign(result, result.xor(result.shrz(JExpr.lit(16))));
+            }
+        }
+
+        private IJExpression rotateLeft(IJExpression value, int distance) {
+            JInvocation invocation = types._Integer.staticInvoke("rotateLeft");
+            invocation.arg(value);
+            invocation.arg(JExpr.lit(distance));
+            return invocation;
+        }
+
+        private void appendFloatingPointValue(AbstractJType type, IJExpression value) {
+            // Values that differ no more than epsilon are equal, so no hash code can be computed from them
+            if (floatCustomization.floatEquality() != FloatEquality.EPSILON) {
+                boolean isFloat = type.name().equals("float");
+                AbstractJClass boxedType = isFloat ? types._Float : types._Double;
+                if (floatCustomization.floatEquality() == FloatEquality.BITWISE && types.hasPrimitiveHashCodeMethods()) {
+                    JInvocation invocation = boxedType.staticInvoke("hashCode");
+                    invocation.arg(value);
+                    appendNotNullValue(types._int, invocation);
+                } else {
+                    JInvocation invocation = boxedType.staticInvoke(isFloat ? "floatToIntBits" : "doubleToLongBits");
+                    invocation.arg(value);
+                    IJExpression bits = invocation;
+                    if (floatCustomization.floatEquality() == FloatEquality.IEEE) {
+                        // 0.0 == -0.0 but their bits differ
+                        bits = JOp.cond(value.eq(isFloat ? JExpr.lit(0.0f) : JExpr.lit(0.0)), isFloat ? JExpr.lit(0) : JExpr.lit(0L), invocation);
+                    }
+                    appendNotNullValue(isFloat ? types._int : types._long, bits);
+                }
+            }
+        }
+
         IJExpression result() {
             return result;
         }
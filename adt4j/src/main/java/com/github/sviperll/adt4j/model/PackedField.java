@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2014, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll.adt4j.model;
+
+import com.helger.jcodemodel.AbstractJType;
+import com.helger.jcodemodel.IJExpression;
+import com.helger.jcodemodel.JExpr;
+import com.helger.jcodemodel.JFieldVar;
+import com.helger.jcodemodel.JOp;
+
+/**
+ * Small primitive field stored as a bit range of int or long word of case class.
+ *
+ * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ */
+class PackedField {
+    static int bitWidth(AbstractJType type) {
+        if (!type.isPrimitive())
+            return 0;
+        else if (type.name().equals("boolean"))
+            return 1;
+        else if (type.name().equals("byte"))
+            return 8;
+        else if (type.name().equals("char") || type.name().equals("short"))
+            return 16;
+        else
+            return 0;
+    }
+
+    private final JFieldVar word;
+    private final int offset;
+    private final AbstractJType type;
+
+    PackedField(JFieldVar word, int offset, AbstractJType type) {
+        this.word = word;
+        this.offset = offset;
+        this.type = type;
+    }
+
+    AbstractJType type() {
+        return type;
+    }
+
+    String wordName() {
+        return word.name();
+    }
+
+    IJExpression read(IJExpression instance) {
+        IJExpression bits = instance.ref(word);
+        if (offset != 0)
+            bits = bits.shrz(JExpr.lit(offset));
+        if (type.name().equals("boolean"))
+            return bits.band(JExpr.lit(1)).ne(JExpr.lit(0));
+        else
+            return JExpr.cast(type, bits);
+    }
+
+    IJExpression bits(IJExpression value) {
+        IJExpression bits;
+        if (type.name().equals("boolean"))
+            bits = JOp.cond(value, JExpr.lit(1), JExpr.lit(0));
+        else if (type.name().equals("byte"))
+            bits = value.band(JExpr.lit(0xFF));
+        else if (type.name().equals("short"))
+            bits = value.band(JExpr.lit(0xFFFF));
+        else
+            bits = value;
+        if (word.type().name().equals("long"))
+            bits = JExpr.cast(word.type(), bits);
+        if (offset != 0)
+            bits = bits.shl(JExpr.lit(offset));
+        return bits;
+    }
+}
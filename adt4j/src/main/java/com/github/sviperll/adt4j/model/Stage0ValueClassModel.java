@@ -39,6 +39,7 @@ import com.github.sviperll.adt4j.model.util.Types;
 import com.helger.jcodemodel.AbstractJClass;
 import com.helger.jcodemodel.JAnnotationUse;
 import com.helger.jcodemodel.JDefinedClass;
+import javax.lang.model.SourceVersion;
 
 /**
  *
@@ -58,7 +59,7 @@ public class Stage0ValueClassModel {
         this.valueClass = valueClass;
     }
 
-    public GenerationResult<Stage1ValueClassModel> createStage1Model(JDefinedClass jVisitorModel, Visitor visitorAnnotation) {
+    public GenerationResult<Stage1ValueClassModel> createStage1Model(JDefinedClass jVisitorModel, Visitor visitorAnnotation, SourceVersion sourceVersion) {
         GenerationProcess generation = new GenerationProcess();
         if (error != null) {
             generation.reportError(error);
@@ -77,13 +78,13 @@ public class Stage0ValueClassModel {
                 throw new IllegalStateException("ValueClassModelFactory can't be run for interface without " + GenerateValueClassForVisitor.class + " annotation");
             VisitorDefinition visitorModel = generation.processGenerationResult(VisitorDefinition.createInstance(jVisitorModel, visitorAnnotation));
             ValueClassConfiguration configuration = generation.processGenerationResult(ValueClassConfiguration.createInstance(visitorModel, annotation, valueClass));
-            Stage1ValueClassModel result = createStage1Model(configuration);
+            Stage1ValueClassModel result = createStage1Model(configuration, sourceVersion);
             return generation.createGenerationResult(result);
         }
     }
 
-    private Stage1ValueClassModel createStage1Model(ValueClassConfiguration visitorInterface) throws RuntimeException {
-        Types types = Types.createInstance(valueClass.owner());
+    private Stage1ValueClassModel createStage1Model(ValueClassConfiguration visitorInterface, SourceVersion sourceVersion) throws RuntimeException {
+        Types types = Types.createInstance(valueClass.owner(), sourceVersion);
         Stage1ValueClassModel model = new Stage1ValueClassModel(valueClass, visitorInterface, types);
         model.fullySpecifyClassHeader();
         return model;  
@@ -90,5 +90,6 @@ public class Stage0ValueClassModelFactory {
 
     public interface JDefinedClassFactory {
         JDefinedClass defineClass(String packageName, int mods, String className) throws JClassAlreadyExistsException;
+        JDefinedClass defineInterface(String packageName, int mods, String interfaceName) throws JClassAlreadyExistsException;
     }
 }
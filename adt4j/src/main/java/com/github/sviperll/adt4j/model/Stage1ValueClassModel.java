@@ -29,8 +29,17 @@
  */
 package com.github.sviperll.adt4j.model;
 
+import com.github.sviperll.adt4j.Caching;
+import com.github.sviperll.adt4j.GenerateValueClassForVisitor;
+import com.github.sviperll.adt4j.GenerateValueClassForVisitorProcessor;
+import com.github.sviperll.adt4j.Visitor;
+import com.github.sviperll.adt4j.model.config.CachedMethodConfiguration;
 import com.github.sviperll.adt4j.model.config.FieldConfiguration;
+import com.github.sviperll.adt4j.model.config.FieldEqualityConfiguration;
+import com.github.sviperll.adt4j.model.config.FieldInterningConfiguration;
 import com.github.sviperll.adt4j.model.config.PredicateConfigutation;
+import com.github.sviperll.adt4j.model.config.SpecializationConfiguration;
+import com.github.sviperll.adt4j.model.config.ValueCacheConfiguration;
 import com.github.sviperll.adt4j.model.config.ValueClassConfiguration;
 import com.github.sviperll.adt4j.model.config.VisitorDefinition;
 import com.github.sviperll.adt4j.model.util.GenerationProcess;
@@ -40,14 +49,20 @@ import com.github.sviperll.adt4j.model.util.Types;
 import com.helger.jcodemodel.AbstractJClass;
 import com.helger.jcodemodel.AbstractJType;
 import com.helger.jcodemodel.EClassType;
+import com.helger.jcodemodel.JAnnotationUse;
 import com.helger.jcodemodel.JClassAlreadyExistsException;
 import com.helger.jcodemodel.JDefinedClass;
 import com.helger.jcodemodel.JMethod;
 import com.helger.jcodemodel.JMod;
 import com.helger.jcodemodel.JTypeVar;
 import com.helger.jcodemodel.JVar;
+import java.text.MessageFormat;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import javax.annotation.Generated;
 
 /**
  *
@@ -71,11 +86,30 @@ public class Stage1ValueClassModel {
         Map<String, FieldConfiguration> gettersConfigutation = generation.processGenerationResult(configuration.getGettersConfigutation(valueClass, types));
         Map<String, FieldConfiguration> updatersConfiguration = generation.processGenerationResult(configuration.getUpdatersConfiguration(valueClass, types));
         Map<String, PredicateConfigutation> predicates = generation.processGenerationResult(configuration.getPredicates());
+        Map<String, ValueCacheConfiguration> valueCaches = generation.processGenerationResult(configuration.getValueCaches());
+        Map<String, CachedMethodConfiguration> cachedMethods = generation.processGenerationResult(configuration.getCachedMethods(valueClass));
+        for (Iterator<String> iterator = cachedMethods.keySet().iterator(); iterator.hasNext();) {
+            String cachedMethodName = iterator.next();
+            String usage = gettersConfigutation.containsKey(cachedMethodName) ? "getter"
+                           : updatersConfiguration.containsKey(cachedMethodName) ? "updater"
+                           : predicates.containsKey(cachedMethodName) ? "predicate"
+                           : null;
+            if (usage != null) {
+                generation.reportError(MessageFormat.format("Unable to generate cached accessor {0}: name is already used by generated {1}", cachedMethodName, usage));
+                iterator.remove();
+            }
+        }
+        Map<String, Map<String, Caching>> lazyFields = generation.processGenerationResult(configuration.getLazyFields());
+        Map<String, Map<String, FieldInterningConfiguration>> internedFields = generation.processGenerationResult(configuration.getInternedFields());
+        Map<String, Map<String, FieldEqualityConfiguration>> fieldEqualities = generation.processGenerationResult(configuration.getFieldEqualities());
 
         FinalValueClassModel result;
         if (generation.hasErrors()) {
             FinalValueClassModelEnvironment environment = new FinalValueClassModelEnvironment(valueClass, null, configuration);
             result = FinalValueClassModel.createErrorModel(environment, types);
+        } else if (configuration.isEnumLike()) {
+            FinalValueClassModelEnvironment environment = new FinalValueClassModelEnvironment(valueClass, null, configuration);
+            result = FinalValueClassModel.createModel(environment, types);
         } else {
             JDefinedClass acceptingInterface;
             try {
@@ -90,11 +124,13 @@ public class Stage1ValueClassModel {
             result = FinalValueClassModel.createModel(environment, types);
         }
         result.buildSerialVersionUID();
-        FinalValueClassModel.MethodBuilder methodBuilder = result.createMethodBuilder(configuration.serialization());
-        Map<String, JMethod> constructorMethods = methodBuilder.buildConstructorMethods(configuration.serialization());
+        FinalValueClassModel.MethodBuilder methodBuilder = result.createMethodBuilder(configuration.serialization(), gettersConfigutation, cachedMethods, lazyFields, internedFields, fieldEqualities);
+        Map<String, JMethod> constructorMethods = methodBuilder.buildConstructorMethods(configuration.serialization(), valueCaches);
         methodBuilder.buildPrivateConstructor();
-        if (configuration.isValueClassSerializable())
+        if (configuration.isValueClassSerializable()) {
             methodBuilder.buildReadObjectMethod();
+            methodBuilder.buildReadResolveMethod();
+        }
         methodBuilder.buildProtectedConstructor(configuration.serialization());
         methodBuilder.buildAcceptMethod();
         for (FieldConfiguration getter: gettersConfigutation.values()) {
@@ -106,14 +142,24 @@ public class Stage1ValueClassModel {
         for (Map.Entry<String, PredicateConfigutation> predicate: predicates.entrySet()) {
             methodBuilder.generatePredicate(predicate.getKey(), predicate.getValue());
         }
+        for (CachedMethodConfiguration cachedMethod: cachedMethods.values()) {
+            methodBuilder.generateCachedMethod(cachedMethod);
+        }
         if (configuration.isValueClassComparable()) {
             methodBuilder.buildCompareTo();
         }
         methodBuilder.buildEqualsMethod();
-        methodBuilder.buildHashCodeMethod(configuration.hashCodeBase());
+        methodBuilder.buildHashCodeMethod(configuration.hashCodeBase(), configuration.hashAlgorithm());
         methodBuilder.buildToStringMethod();
+        if (configuration.fingerprints()) {
+            methodBuilder.buildFingerprintMethods();
+        }
+        methodBuilder.buildInternTableMethod();
         try {
             result.buildFactory(constructorMethods);
+            methodBuilder.buildTagMethods();
+            methodBuilder.buildContextAcceptMethod();
+            methodBuilder.buildPrimitiveAcceptMethods();
         } catch (JClassAlreadyExistsException ex) {
             throw new RuntimeException("Unexpected exception :)", ex);
         }
@@ -121,6 +167,116 @@ public class Stage1ValueClassModel {
         return generation.createGenerationResult(valueClass);
     }
 
+    public GenerationResult<List<JDefinedClass>> createSpecializedVisitors(Stage0ValueClassModelFactory.JDefinedClassFactory factory) {
+        GenerationProcess generation = new GenerationProcess();
+        List<JDefinedClass> result = new ArrayList<>();
+        if (!valueClass.isHidden()) {
+            JDefinedClass visitorInterface = configuration.visitorDefinition().visitorInterface();
+            int mods = visitorInterface.mods().getValue() & JMod.PUBLIC;
+            List<SpecializationConfiguration> specializations = generation.processGenerationResult(configuration.getSpecializations(valueClass));
+            for (SpecializationConfiguration specialization: specializations) {
+                JDefinedClass specializedVisitor;
+                try {
+                    specializedVisitor = factory.defineInterface(valueClass._package().name(), mods, specialization.visitorName());
+                } catch (JClassAlreadyExistsException ex) {
+                    specializedVisitor = null;
+                    generation.reportError("Unable to specialize generated class: class " + specialization.visitorName() + " already exists");
+                }
+                if (specializedVisitor != null) {
+                    buildSpecializedVisitor(specializedVisitor, specialization);
+                    result.add(specializedVisitor);
+                }
+            }
+        }
+        return generation.createGenerationResult(result);
+    }
+
+    private void buildSpecializedVisitor(JDefinedClass specializedVisitor, SpecializationConfiguration specialization) {
+        JDefinedClass visitorInterface = configuration.visitorDefinition().visitorInterface();
+        JAnnotationUse generatedAnnotation = specializedVisitor.annotate(Generated.class);
+        generatedAnnotation.param("value", GenerateValueClassForVisitorProcessor.class.getName());
+        for (JAnnotationUse annotation: visitorInterface.annotations()) {
+            String annotationClassName = annotation.getAnnotationClass().fullName();
+            if (annotationClassName != null && annotationClassName.equals(GenerateValueClassForVisitor.class.getName())) {
+                JAnnotationUse generateAnnotation = Source.copyAnnotation(annotation, specializedVisitor);
+                generateAnnotation.param("className", specialization.className());
+                generateAnnotation.param("wrapperClass", Object.class);
+            } else if (annotationClassName != null && annotationClassName.equals(Visitor.class.getName())) {
+                Source.copyAnnotation(annotation, specializedVisitor);
+            }
+        }
+        for (JTypeVar typeVariable: visitorInterface.typeParams()) {
+            if (typeVariable != specialization.typeVariable()) {
+                JTypeVar specializedTypeVariable = specializedVisitor.generify(typeVariable.name());
+                specializedTypeVariable.boundLike(typeVariable);
+            }
+        }
+        for (JMethod method: visitorInterface.methods()) {
+            JMethod specializedMethod = specializedVisitor.method(JMod.NONE, method.type(), method.name());
+            for (JTypeVar typeVariable: method.typeParams()) {
+                JTypeVar specializedTypeVariable = specializedMethod.generify(typeVariable.name());
+                specializedTypeVariable.boundLike(typeVariable);
+            }
+            for (AbstractJClass exception: method.getThrows()) {
+                specializedMethod._throws(exception);
+            }
+            for (JAnnotationUse annotation: method.annotations()) {
+                Source.copyAnnotation(annotation, specializedMethod);
+            }
+            for (JVar param: method.params()) {
+                JVar specializedParam = specializedMethod.param(param.mods().getValue(), specializedType(param.type(), specialization), param.name());
+                for (JAnnotationUse annotation: param.annotations()) {
+                    Source.copyAnnotation(annotation, specializedParam);
+                }
+            }
+            JVar param = method.varParam();
+            if (param != null) {
+                JVar specializedParam = specializedMethod.varParam(param.mods().getValue(), specializedType(param.type().elementType(), specialization), param.name());
+                for (JAnnotationUse annotation: param.annotations()) {
+                    Source.copyAnnotation(annotation, specializedParam);
+                }
+            }
+        }
+    }
+
+    private AbstractJType specializedType(AbstractJType type, SpecializationConfiguration specialization) {
+        if (type == specialization.typeVariable())
+            return specialization.type();
+        else if (type.isArray())
+            return specializedType(type.elementType(), specialization).array();
+        else if (isValueClassReference(type)) {
+            // Generated class or wrapper class applied to all type-parameters is replaced with specialized class
+            List<? extends AbstractJClass> typeArguments = ((AbstractJClass)type).getTypeParameters();
+            List<? extends JTypeVar> typeParameters = configuration.getValueTypeParameters();
+            AbstractJClass result = valueClass.owner().directClass(valueClass._package().name() + "." + specialization.className());
+            for (int i = 0; i < typeParameters.size(); i++) {
+                if (typeParameters.get(i) != specialization.typeVariable())
+                    result = result.narrow(typeArguments.get(i));
+            }
+            return result;
+        } else
+            return Source.substitute(type, specialization.typeVariable(), specialization.type().boxify());
+    }
+
+    private boolean isValueClassReference(AbstractJType type) {
+        if (!(type instanceof AbstractJClass))
+            return false;
+        else {
+            AbstractJClass klass = (AbstractJClass)type;
+            List<? extends AbstractJClass> typeArguments = klass.getTypeParameters();
+            List<? extends JTypeVar> typeParameters = configuration.getValueTypeParameters();
+            if (typeArguments.size() != typeParameters.size())
+                return false;
+            for (int i = 0; i < typeParameters.size(); i++) {
+                if (typeArguments.get(i) != typeParameters.get(i))
+                    return false;
+            }
+            String name = klass.erasure().fullName();
+            return name != null
+                   && (name.equals(valueClass.fullName()) || name.equals(configuration.wrapValueClass(valueClass).erasure().fullName()));
+        }
+    }
+
     private Collection<? extends String> validateInterfaces() {
         GenerationProcess generation = new GenerationProcess();
         if (configuration.isValueClassSerializable()) {
@@ -154,6 +310,22 @@ public class Stage1ValueClassModel {
                 }
             }
         }
+
+        if (configuration.fingerprints()) {
+            for (JMethod interfaceMethod: configuration.visitorDefinition().methodDefinitions()) {
+                for (JVar param: interfaceMethod.params()) {
+                    AbstractJType type = param.type();
+                    if (!type.isError() && !configuration.visitorDefinition().isSelfTypeParameter(type) && !types.isFingerprintable(type))
+                        generation.reportError("Unable to generate fingerprints: " + param.name() + " parameter in " + interfaceMethod.name() + " method has " + type.fullName() + " type that can't be hashed");
+                }
+                JVar param = interfaceMethod.varParam();
+                if (param != null) {
+                    AbstractJType type = param.type();
+                    if (!type.isError() && !configuration.visitorDefinition().isSelfTypeParameter(type) && !types.isFingerprintable(type))
+                        generation.reportError("Unable to generate fingerprints: " + param.name() + " parameter in " + interfaceMethod.name() + " method has " + type.fullName() + " type that can't be hashed");
+                }
+            }
+        }
         return generation.reportedErrors();
     }
 
@@ -170,6 +342,9 @@ public class Stage1ValueClassModel {
         if (configuration.isValueClassSerializable()) {
             valueClass._implements(types._Serializable);
         }
+        if (configuration.fingerprints()) {
+            valueClass._implements(types._Fingerprintable);
+        }
         if (configuration.isValueClassComparable()) {
             valueClass._implements(types._Comparable.narrow(Source.narrowType(configuration.wrapValueClass(valueClass), valueClass.typeParams())));
         }
@@ -186,32 +361,6 @@ public class Stage1ValueClassModel {
             typeParameter.boundLike(visitorTypeParameter);
         }
 
-        JMethod acceptMethod = acceptingInterface.method(JMod.PUBLIC, types._void, configuration.acceptMethodName());
-
-        JTypeVar visitorResultType = configuration.visitorDefinition().getResultTypeParameter();
-        AbstractJClass resultType;
-        if (visitorResultType == null)
-            resultType = types._Object;
-        else {
-            JTypeVar resultTypeVar = acceptMethod.generify(visitorResultType.name());
-            resultTypeVar.boundLike(visitorResultType);
-            resultType = resultTypeVar;
-        }
-        acceptMethod.type(resultType);
-
-        JTypeVar visitorExceptionType = configuration.visitorDefinition().getExceptionTypeParameter();
-        JTypeVar exceptionType = null;
-        if (visitorExceptionType != null) {
-            JTypeVar exceptionTypeParameter = acceptMethod.generify(visitorExceptionType.name());
-            exceptionTypeParameter.boundLike(visitorExceptionType);
-            exceptionType = exceptionTypeParameter;
-            acceptMethod._throws(exceptionType);
-        }
-
-        AbstractJClass usedValueClassType = Source.narrowType(valueClass, valueClass.typeParams());
-        VisitorDefinition.VisitorUsage usedVisitorType = configuration.visitorDefinition().narrowed(usedValueClassType, resultType, exceptionType);
-        acceptMethod.param(usedVisitorType.getVisitorType(), "visitor");
-
         return acceptingInterface;
     }
     
@@ -58,6 +58,14 @@ class APICustomization {
         return acceptMethod.acceptMethodAccessLevel();
     }
 
+    boolean primitiveVisitors() {
+        return acceptMethod.primitiveVisitors();
+    }
+
+    boolean contextVisitors() {
+        return acceptMethod.contextVisitors();
+    }
+
     public boolean isSerializable() {
         return interfaces.isSerializable();
     }
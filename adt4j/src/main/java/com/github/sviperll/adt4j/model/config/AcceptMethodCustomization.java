@@ -38,9 +38,13 @@ import com.github.sviperll.adt4j.MemberAccess;
 class AcceptMethodCustomization {
     private final String acceptMethodName;
     private final MemberAccess acceptMethodAccessLevel;
-    AcceptMethodCustomization(String acceptMethodName, MemberAccess acceptMethodAccessLevel) {
+    private final boolean primitiveVisitors;
+    private final boolean contextVisitors;
+    AcceptMethodCustomization(String acceptMethodName, MemberAccess acceptMethodAccessLevel, boolean primitiveVisitors, boolean contextVisitors) {
         this.acceptMethodName = acceptMethodName;
         this.acceptMethodAccessLevel = acceptMethodAccessLevel;
+        this.primitiveVisitors = primitiveVisitors;
+        this.contextVisitors = contextVisitors;
     }
 
     public String acceptMethodName() {
@@ -51,4 +55,12 @@ class AcceptMethodCustomization {
         return acceptMethodAccessLevel;
     }
 
+    boolean primitiveVisitors() {
+        return primitiveVisitors;
+    }
+
+    boolean contextVisitors() {
+        return contextVisitors;
+    }
+
 }
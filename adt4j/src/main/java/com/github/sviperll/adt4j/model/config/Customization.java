@@ -30,6 +30,8 @@
 package com.github.sviperll.adt4j.model.config;
 
 import com.github.sviperll.adt4j.Caching;
+import com.github.sviperll.adt4j.HashAlgorithm;
+import com.github.sviperll.adt4j.Interning;
 import com.github.sviperll.adt4j.MemberAccess;
 import com.helger.jcodemodel.AbstractJClass;
 import javax.annotation.Nonnull;
@@ -71,6 +73,14 @@ class Customization {
         return api.acceptMethodAccessLevel();
     }
 
+    boolean primitiveVisitors() {
+        return api.primitiveVisitors();
+    }
+
+    boolean contextVisitors() {
+        return api.contextVisitors();
+    }
+
     @Nonnull
     Caching hashCodeCaching() {
         return implementation.hashCodeCaching();
@@ -93,6 +103,10 @@ class Customization {
         return implementation.hashCodeBase();
     }
 
+    HashAlgorithm hashAlgorithm() {
+        return implementation.hashAlgorithm();
+    }
+
     @Nonnull
     Serialization serialization() {
         return api.serialization();
@@ -115,4 +129,25 @@ class Customization {
     FloatCustomization floatCustomization() {
         return implementation.floatCustomization();
     }
+
+    @Nonnull
+    Interning interning() {
+        return implementation.interning();
+    }
+
+    int internTableSize() {
+        return implementation.internTableSize();
+    }
+
+    boolean packFields() {
+        return implementation.packFields();
+    }
+
+    boolean copyArrays() {
+        return implementation.copyArrays();
+    }
+
+    boolean fingerprints() {
+        return implementation.fingerprints();
+    }
 }
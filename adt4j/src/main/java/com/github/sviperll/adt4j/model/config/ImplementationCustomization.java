@@ -30,6 +30,8 @@
 package com.github.sviperll.adt4j.model.config;
 
 import com.github.sviperll.adt4j.Caching;
+import com.github.sviperll.adt4j.HashAlgorithm;
+import com.github.sviperll.adt4j.Interning;
 
 /**
  *
@@ -37,13 +39,25 @@ import com.github.sviperll.adt4j.Caching;
  */
 class ImplementationCustomization {
     private final int hashCodeBase;
+    private final HashAlgorithm hashAlgorithm;
     private final Caching hashCodeCaching;
     private final FloatCustomization floatCustomization;
+    private final Interning interning;
+    private final int internTableSize;
+    private final boolean packFields;
+    private final boolean copyArrays;
+    private final boolean fingerprints;
 
-    ImplementationCustomization(Caching hashCodeCaching, int hashCodeBase, FloatCustomization floatCustomization) {
+    ImplementationCustomization(Caching hashCodeCaching, int hashCodeBase, HashAlgorithm hashAlgorithm, FloatCustomization floatCustomization, Interning interning, int internTableSize, boolean packFields, boolean copyArrays, boolean fingerprints) {
         this.hashCodeBase = hashCodeBase;
+        this.hashAlgorithm = hashAlgorithm;
         this.hashCodeCaching = hashCodeCaching;
         this.floatCustomization = floatCustomization;
+        this.interning = interning;
+        this.internTableSize = internTableSize;
+        this.packFields = packFields;
+        this.copyArrays = copyArrays;
+        this.fingerprints = fingerprints;
     }
 
     Caching hashCodeCaching() {
@@ -54,7 +68,31 @@ class ImplementationCustomization {
         return hashCodeBase;
     }
 
+    HashAlgorithm hashAlgorithm() {
+        return hashAlgorithm;
+    }
+
     FloatCustomization floatCustomization() {
         return floatCustomization;
     }
+
+    Interning interning() {
+        return interning;
+    }
+
+    int internTableSize() {
+        return internTableSize;
+    }
+
+    boolean packFields() {
+        return packFields;
+    }
+
+    boolean copyArrays() {
+        return copyArrays;
+    }
+
+    boolean fingerprints() {
+        return fingerprints;
+    }
 }
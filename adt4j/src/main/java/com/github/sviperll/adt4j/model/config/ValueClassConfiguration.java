@@ -29,8 +29,18 @@
  */
 package com.github.sviperll.adt4j.model.config;
 
+import com.github.sviperll.adt4j.Cached;
 import com.github.sviperll.adt4j.Caching;
+import com.github.sviperll.adt4j.Equality;
+import com.github.sviperll.adt4j.FieldEquality;
+import com.github.sviperll.adt4j.FloatEquality;
+import com.github.sviperll.adt4j.HashAlgorithm;
+import com.github.sviperll.adt4j.Intern;
+import com.github.sviperll.adt4j.Interning;
+import com.github.sviperll.adt4j.Lazy;
 import com.github.sviperll.adt4j.MemberAccess;
+import com.github.sviperll.adt4j.Specialize;
+import com.github.sviperll.adt4j.ValueCache;
 import com.github.sviperll.adt4j.WrapsGeneratedValueClass;
 import com.github.sviperll.adt4j.model.config.VariableDeclaration;
 import com.github.sviperll.adt4j.model.config.VisitorDefinition.MethodUsage;
@@ -42,20 +52,26 @@ import com.helger.jcodemodel.AbstractJClass;
 import com.helger.jcodemodel.AbstractJType;
 import com.helger.jcodemodel.IJExpression;
 import com.helger.jcodemodel.JAnnotationUse;
+import com.helger.jcodemodel.JCodeModel;
 import com.helger.jcodemodel.JDefinedClass;
 import com.helger.jcodemodel.JExpr;
 import com.helger.jcodemodel.JInvocation;
 import com.helger.jcodemodel.JMethod;
+import com.helger.jcodemodel.JMod;
+import com.helger.jcodemodel.JPrimitiveType;
 import com.helger.jcodemodel.JTypeVar;
 import com.helger.jcodemodel.JVar;
 import java.text.MessageFormat;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import javax.annotation.Nullable;
 
 public class ValueClassConfiguration {
     private static final String VISITOR_SUFFIX = "Visitor";
     private static final String VALUE_SUFFIX = "Value";
+    private static final int MAX_VALUE_CACHE_SIZE = 65536;
 
     public static GenerationResult<ValueClassConfiguration> createInstance(VisitorDefinition visitorDefinition, JAnnotationUse annotation) {
         return createInstance(visitorDefinition, annotation, null);
@@ -65,24 +81,41 @@ public class ValueClassConfiguration {
         GenerationProcess generation = new GenerationProcess();
         String acceptMethodName = annotation.getParam("acceptMethodName", String.class);
         MemberAccess acceptMethodAccess = annotation.getParam("acceptMethodAccess", MemberAccess.class);
+        boolean primitiveVisitors = annotation.getParam("primitiveVisitors", Boolean.class);
+        boolean contextVisitors = annotation.getParam("contextVisitors", Boolean.class);
         boolean isPublic = annotation.getParam("isPublic", Boolean.class);
         Caching hashCodeCaching = annotation.getParam("hashCodeCaching", Caching.class);
         int hashCodeBase = annotation.getParam("hashCodeBase", Integer.class);
+        HashAlgorithm hashAlgorithm = annotation.getParam("hashAlgorithm", HashAlgorithm.class);
         boolean isComparable = annotation.getParam("isComparable", Boolean.class);
+        FloatEquality floatEquality = annotation.getParam("floatEquality", FloatEquality.class);
         float floatEpsilon = annotation.getParam("floatEpsilon", Float.class);
         double doubleEpsilon = annotation.getParam("doubleEpsilon", Double.class);
-        FloatCustomization floatCustomization = new FloatCustomization(floatEpsilon, doubleEpsilon);
+        FloatCustomization floatCustomization = new FloatCustomization(floatEquality, floatEpsilon, doubleEpsilon);
+        Interning interning = annotation.getParam("interning", Interning.class);
+        int internTableSize = annotation.getParam("internTableSize", Integer.class);
+        if (interning == Interning.BOUNDED && internTableSize <= 0)
+            generation.reportError("internTableSize should be positive when BOUNDED interning is used, but " + internTableSize + " found");
+        boolean packFields = annotation.getParam("packFields", Boolean.class);
+        boolean copyArrays = annotation.getParam("copyArrays", Boolean.class);
+        boolean fingerprints = annotation.getParam("fingerprints", Boolean.class);
+        if (fingerprints && floatEquality != FloatEquality.BITWISE)
+            generation.reportError("Unable to generate fingerprints: " + floatEquality + " float equality is used, but BITWISE float equality is required");
         Serialization serialization = serialization(annotation);
         ClassCustomization classCustomization = generation.processGenerationResult(classCustomization(annotation, visitorDefinition, valueClass));
 
         AbstractJClass[] interfaces = annotation.getParam("implementsInterfaces", AbstractJClass[].class);
 
-        AcceptMethodCustomization acceptMethodCustomization = new AcceptMethodCustomization(acceptMethodName, acceptMethodAccess);
+        AcceptMethodCustomization acceptMethodCustomization = new AcceptMethodCustomization(acceptMethodName, acceptMethodAccess, primitiveVisitors, contextVisitors);
         InterfacesCustomization interfaceCustomization = new InterfacesCustomization(isComparable, serialization, interfaces);
         APICustomization apiCustomization = new APICustomization(isPublic, acceptMethodCustomization, interfaceCustomization);
-        ImplementationCustomization implementationCustomization = new ImplementationCustomization(hashCodeCaching, hashCodeBase, floatCustomization);
+        ImplementationCustomization implementationCustomization = new ImplementationCustomization(hashCodeCaching, hashCodeBase, hashAlgorithm, floatCustomization, interning, internTableSize, packFields, copyArrays, fingerprints);
         Customization customiztion = new Customization(classCustomization, apiCustomization, implementationCustomization);
-        return generation.createGenerationResult(new ValueClassConfiguration(visitorDefinition, customiztion));
+        ValueClassConfiguration configuration = new ValueClassConfiguration(visitorDefinition, customiztion);
+        // Enum-like values are hashed by tag only, so there is nothing to cache
+        if (configuration.isEnumLike() && hashCodeCaching.enabled())
+            generation.reportError("Unable to cache hash code with " + hashCodeCaching + " caching: all cases are nullary, so hash code is computed from case tag, use NONE caching");
+        return generation.createGenerationResult(configuration);
     }
 
     private static GenerationResult<ClassCustomization> classCustomization(JAnnotationUse annotation, VisitorDefinition visitorDefinition, JDefinedClass valueClass) throws ClassCastException, NullPointerException {
@@ -217,6 +250,14 @@ public class ValueClassConfiguration {
         return customization.acceptMethodAccessLevel();
     }
 
+    public boolean primitiveVisitors() {
+        return customization.primitiveVisitors();
+    }
+
+    public boolean contextVisitors() {
+        return customization.contextVisitors();
+    }
+
     public Caching hashCodeCaching() {
         return customization.hashCodeCaching();
     }
@@ -245,6 +286,10 @@ public class ValueClassConfiguration {
         return customization.hashCodeBase();
     }
 
+    public HashAlgorithm hashAlgorithm() {
+        return customization.hashAlgorithm();
+    }
+
     public Serialization serialization() {
         return customization.serialization();
     }
@@ -301,6 +346,283 @@ public class ValueClassConfiguration {
         return generation.createGenerationResult(predicates);
     }
 
+    public GenerationResult<Map<String, ValueCacheConfiguration>> getValueCaches() {
+        GenerationProcess generation = new GenerationProcess();
+        Map<String, ValueCacheConfiguration> valueCaches = new TreeMap<>();
+        for (JMethod interfaceMethod: visitorDefinition.methodDefinitions()) {
+            for (JAnnotationUse annotationUsage: interfaceMethod.annotations()) {
+                String annotationClassName = annotationUsage.getAnnotationClass().fullName();
+                if (annotationClassName != null && annotationClassName.equals(ValueCache.class.getName())) {
+                    int low = annotationUsage.getParam("low", Integer.class);
+                    int high = annotationUsage.getParam("high", Integer.class);
+                    List<JVar> params = interfaceMethod.params();
+                    if (params.size() != 1 || interfaceMethod.hasVarArgs())
+                        generation.reportError(MessageFormat.format("Unable to generate value cache for {0} case: single argument expected", interfaceMethod.name()));
+                    else {
+                        AbstractJType type = params.get(0).type();
+                        String typeName = type.isPrimitive() ? type.name() : "";
+                        long minValue;
+                        long maxValue;
+                        if (typeName.equals("byte")) {
+                            minValue = Byte.MIN_VALUE;
+                            maxValue = Byte.MAX_VALUE;
+                        } else if (typeName.equals("short")) {
+                            minValue = Short.MIN_VALUE;
+                            maxValue = Short.MAX_VALUE;
+                        } else if (typeName.equals("char")) {
+                            minValue = Character.MIN_VALUE;
+                            maxValue = Character.MAX_VALUE;
+                        } else if (typeName.equals("int") || typeName.equals("long")) {
+                            minValue = Integer.MIN_VALUE;
+                            maxValue = Integer.MAX_VALUE;
+                        } else {
+                            generation.reportError(MessageFormat.format("Unable to generate value cache for {0} case: argument should be byte, short, char, int or long, but {1} found",
+                                                                        interfaceMethod.name(), type.fullName()));
+                            continue;
+                        }
+                        if (low > high)
+                            generation.reportError(MessageFormat.format("Unable to generate value cache for {0} case: low should not be greater than high", interfaceMethod.name()));
+                        else if (low < minValue || high > maxValue)
+                            generation.reportError(MessageFormat.format("Unable to generate value cache for {0} case: [{1}, {2}] range is out of argument type range",
+                                                                        interfaceMethod.name(), Integer.toString(low), Integer.toString(high)));
+                        else if ((long)high - (long)low + 1 > MAX_VALUE_CACHE_SIZE)
+                            generation.reportError(MessageFormat.format("Unable to generate value cache for {0} case: range is too large, at most {1} values can be cached",
+                                                                        interfaceMethod.name(), Integer.toString(MAX_VALUE_CACHE_SIZE)));
+                        else
+                            valueCaches.put(interfaceMethod.name(), new ValueCacheConfiguration(low, high));
+                    }
+                }
+            }
+        }
+        return generation.createGenerationResult(valueCaches);
+    }
+
+    public GenerationResult<Map<String, CachedMethodConfiguration>> getCachedMethods(JDefinedClass valueClass) {
+        GenerationProcess generation = new GenerationProcess();
+        Map<String, CachedMethodConfiguration> cachedMethods = new TreeMap<>();
+        AbstractJClass wrapperClass = customization.wrapperClass();
+        if (wrapperClass != null && wrapperClass.erasure() instanceof JDefinedClass) {
+            JDefinedClass definition = (JDefinedClass)wrapperClass.erasure();
+            JTypeVar[] wrapperTypeParameters = definition.typeParams();
+            JTypeVar[] valueClassTypeParameters = valueClass.typeParams();
+            for (JMethod method: definition.methods()) {
+                for (JAnnotationUse annotationUsage: method.annotations()) {
+                    String annotationClassName = annotationUsage.getAnnotationClass().fullName();
+                    if (annotationClassName != null && annotationClassName.equals(Cached.class.getName())) {
+                        String name = annotationUsage.getParam("name", String.class);
+                        MemberAccess accessLevel = annotationUsage.getParam("access", MemberAccess.class);
+                        Caching caching = annotationUsage.getParam("caching", Caching.class);
+                        String prefix = "compute";
+                        if (name.equals(":auto")) {
+                            if (method.name().startsWith(prefix) && method.name().length() > prefix.length())
+                                name = Source.decapitalize(method.name().substring(prefix.length()));
+                            else {
+                                generation.reportError(MessageFormat.format("Unable to generate cached accessor for {0} method: method name should start with \"{1}\" or accessor name should be given",
+                                                                            method.name(), prefix));
+                                continue;
+                            }
+                        }
+                        if (!method.params().isEmpty() || method.hasVarArgs() || method.typeParams().length != 0)
+                            generation.reportError(MessageFormat.format("Unable to generate cached accessor for {0} method: method should have no arguments and no type-parameters", method.name()));
+                        else if ((method.mods().getValue() & (JMod.STATIC | JMod.PRIVATE)) != 0)
+                            generation.reportError(MessageFormat.format("Unable to generate cached accessor for {0} method: method should be non-static and non-private", method.name()));
+                        else if (method.type().fullName().equals("void"))
+                            generation.reportError(MessageFormat.format("Unable to generate cached accessor for {0} method: method should return some value", method.name()));
+                        else if (caching == Caching.ATOMIC)
+                            generation.reportError(MessageFormat.format("Unable to generate cached accessor for {0} method: {1} caching is supported for hash code only", method.name(), caching));
+                        else if (cachedMethods.containsKey(name))
+                            generation.reportError(MessageFormat.format("Unable to generate cached accessor for {0} method: {1} accessor is already defined", method.name(), name));
+                        else {
+                            AbstractJType type = method.type();
+                            for (int i = 0; i < wrapperTypeParameters.length && i < valueClassTypeParameters.length; i++) {
+                                type = Source.substitute(type, wrapperTypeParameters[i], valueClassTypeParameters[i]);
+                            }
+                            cachedMethods.put(name, new CachedMethodConfiguration(name, method.name(), type, accessLevel, caching));
+                        }
+                    }
+                }
+            }
+        }
+        return generation.createGenerationResult(cachedMethods);
+    }
+
+    public GenerationResult<Map<String, Map<String, Caching>>> getLazyFields() {
+        GenerationProcess generation = new GenerationProcess();
+        Map<String, Map<String, Caching>> lazyFields = new TreeMap<>();
+        for (JMethod interfaceMethod: visitorDefinition.methodDefinitions()) {
+            Map<String, Caching> caseLazyFields = new TreeMap<>();
+            for (JVar param: interfaceMethod.params()) {
+                Caching caching = lazyFieldCaching(param);
+                if (caching == Caching.PRECOMPUTE || caching == Caching.ATOMIC)
+                    generation.reportError(MessageFormat.format("Unable to generate lazy field for {0} parameter in {1} method: {2} caching is not supported for lazy fields",
+                                                                param.name(), interfaceMethod.name(), caching));
+                else if (caching != null)
+                    caseLazyFields.put(param.name(), caching);
+            }
+            JVar param = interfaceMethod.varParam();
+            if (param != null && lazyFieldCaching(param) != null)
+                generation.reportError(MessageFormat.format("Unable to generate lazy field for {0} parameter in {1} method: variable arguments can't be lazy",
+                                                            param.name(), interfaceMethod.name()));
+            if (!caseLazyFields.isEmpty()) {
+                String reason = null;
+                if (isValueClassSerializable())
+                    reason = "value class can't be serializable";
+                else if (interning().enabled())
+                    reason = "value class can't be interned";
+                else if (hashCodeCaching() == Caching.PRECOMPUTE)
+                    reason = "hash code can't be precomputed";
+                else {
+                    for (JAnnotationUse annotationUsage: interfaceMethod.annotations()) {
+                        String annotationClassName = annotationUsage.getAnnotationClass().fullName();
+                        if (annotationClassName != null && annotationClassName.equals(ValueCache.class.getName()))
+                            reason = "value cache can't be used";
+                    }
+                }
+                if (reason != null)
+                    generation.reportError(MessageFormat.format("Unable to generate lazy fields for {0} method: {1}", interfaceMethod.name(), reason));
+                else
+                    lazyFields.put(interfaceMethod.name(), caseLazyFields);
+            }
+        }
+        return generation.createGenerationResult(lazyFields);
+    }
+
+    public GenerationResult<Map<String, Map<String, FieldInterningConfiguration>>> getInternedFields() {
+        GenerationProcess generation = new GenerationProcess();
+        Map<String, Map<String, FieldInterningConfiguration>> internedFields = new TreeMap<>();
+        for (JMethod interfaceMethod: visitorDefinition.methodDefinitions()) {
+            Map<String, FieldInterningConfiguration> caseInternedFields = new TreeMap<>();
+            for (JVar param: interfaceMethod.params()) {
+                for (JAnnotationUse annotationUsage: param.annotations()) {
+                    String annotationClassName = annotationUsage.getAnnotationClass().fullName();
+                    if (annotationClassName != null && annotationClassName.equals(Intern.class.getName())) {
+                        Interning interning = annotationUsage.getParam("interning", Interning.class);
+                        int tableSize = annotationUsage.getParam("tableSize", Integer.class);
+                        String reason = null;
+                        if (!param.type().isReference() || param.type().isArray())
+                            reason = "only non-array object arguments can be canonicalized";
+                        else if (lazyFieldCaching(param) != null)
+                            reason = "lazy arguments can't be canonicalized";
+                        else if (!interning.enabled())
+                            reason = interning + " interning is not allowed";
+                        else if (interning == Interning.BOUNDED && tableSize <= 0)
+                            reason = "tableSize should be positive when BOUNDED interning is used, but " + tableSize + " found";
+                        if (reason != null)
+                            generation.reportError(MessageFormat.format("Unable to canonicalize {0} parameter in {1} method: {2}", param.name(), interfaceMethod.name(), reason));
+                        else
+                            caseInternedFields.put(param.name(), new FieldInterningConfiguration(interning, tableSize));
+                    }
+                }
+            }
+            JVar param = interfaceMethod.varParam();
+            if (param != null) {
+                for (JAnnotationUse annotationUsage: param.annotations()) {
+                    String annotationClassName = annotationUsage.getAnnotationClass().fullName();
+                    if (annotationClassName != null && annotationClassName.equals(Intern.class.getName()))
+                        generation.reportError(MessageFormat.format("Unable to canonicalize {0} parameter in {1} method: variable arguments can't be canonicalized", param.name(), interfaceMethod.name()));
+                }
+            }
+            if (!caseInternedFields.isEmpty())
+                internedFields.put(interfaceMethod.name(), caseInternedFields);
+        }
+        return generation.createGenerationResult(internedFields);
+    }
+
+    public GenerationResult<Map<String, Map<String, FieldEqualityConfiguration>>> getFieldEqualities() {
+        GenerationProcess generation = new GenerationProcess();
+        Map<String, Map<String, FieldEqualityConfiguration>> fieldEqualities = new TreeMap<>();
+        for (JMethod interfaceMethod: visitorDefinition.methodDefinitions()) {
+            Map<String, FieldEqualityConfiguration> caseFieldEqualities = new TreeMap<>();
+            List<JVar> params = new ArrayList<>(interfaceMethod.params());
+            if (interfaceMethod.hasVarArgs())
+                params.add(interfaceMethod.varParam());
+            for (JVar param: params) {
+                for (JAnnotationUse annotationUsage: param.annotations()) {
+                    String annotationClassName = annotationUsage.getAnnotationClass().fullName();
+                    if (annotationClassName != null && annotationClassName.equals(Equality.class.getName())) {
+                        FieldEquality equality = annotationUsage.getParam("value", FieldEquality.class);
+                        int priority = annotationUsage.getParam("priority", Integer.class);
+                        boolean isArray = param == interfaceMethod.varParam() || param.type().isArray();
+                        if (equality == FieldEquality.SHALLOW && !isArray)
+                            generation.reportError(MessageFormat.format("Unable to use {0} equality for {1} parameter in {2} method: array expected",
+                                                                        equality, param.name(), interfaceMethod.name()));
+                        else if (equality == FieldEquality.SHALLOW && !param.type().elementType().isReference())
+                            generation.reportError(MessageFormat.format("Unable to use {0} equality for {1} parameter in {2} method: array of objects expected, STRUCTURAL equality already compares arrays of primitives element by element",
+                                                                        equality, param.name(), interfaceMethod.name()));
+                        else if (equality == FieldEquality.EXCLUDED && interning().enabled())
+                            generation.reportError(MessageFormat.format("Unable to use {0} equality for {1} parameter in {2} method: values are interned, so that values differing in excluded field would be replaced by each other",
+                                                                        equality, param.name(), interfaceMethod.name()));
+                        else if (equality == FieldEquality.IDENTITY && !isArray && !param.type().isReference())
+                            generation.reportError(MessageFormat.format("Unable to use {0} equality for {1} parameter in {2} method: object expected",
+                                                                        equality, param.name(), interfaceMethod.name()));
+                        else if ((equality == FieldEquality.IDENTITY || equality == FieldEquality.SHALLOW) && isValueClassComparable())
+                            generation.reportError(MessageFormat.format("Unable to use {0} equality for {1} parameter in {2} method: value class is comparable",
+                                                                        equality, param.name(), interfaceMethod.name()));
+                        else if ((equality == FieldEquality.IDENTITY || equality == FieldEquality.SHALLOW) && fingerprints())
+                            generation.reportError(MessageFormat.format("Unable to use {0} equality for {1} parameter in {2} method: fingerprints are generated",
+                                                                        equality, param.name(), interfaceMethod.name()));
+                        else if (equality != FieldEquality.STRUCTURAL || priority != 0)
+                            caseFieldEqualities.put(param.name(), new FieldEqualityConfiguration(equality, priority));
+                    }
+                }
+            }
+            if (!caseFieldEqualities.isEmpty())
+                fieldEqualities.put(interfaceMethod.name(), caseFieldEqualities);
+        }
+        return generation.createGenerationResult(fieldEqualities);
+    }
+
+    @Nullable
+    private static Caching lazyFieldCaching(JVar param) {
+        for (JAnnotationUse annotationUsage: param.annotations()) {
+            String annotationClassName = annotationUsage.getAnnotationClass().fullName();
+            if (annotationClassName != null && annotationClassName.equals(Lazy.class.getName()))
+                return annotationUsage.getParam("caching", Caching.class);
+        }
+        return null;
+    }
+
+    public GenerationResult<List<SpecializationConfiguration>> getSpecializations(JDefinedClass valueClass) {
+        GenerationProcess generation = new GenerationProcess();
+        List<SpecializationConfiguration> specializations = new ArrayList<>();
+        String baseName = wrapValueClass(valueClass).erasure().name();
+        for (JAnnotationUse annotationUsage: visitorDefinition.visitorInterface().annotations()) {
+            String annotationClassName = annotationUsage.getAnnotationClass().fullName();
+            if (annotationClassName != null && annotationClassName.equals(Specialize.class.getName())) {
+                String typeVariableName = annotationUsage.getParam("typeVariable", String.class);
+                String[] typeNames = annotationUsage.getParam("types", String[].class);
+                JTypeVar typeVariable = null;
+                for (JTypeVar valueTypeParameter: getValueTypeParameters()) {
+                    if (valueTypeParameter.name().equals(typeVariableName))
+                        typeVariable = valueTypeParameter;
+                }
+                if (typeVariable == null)
+                    generation.reportError(MessageFormat.format("Unable to specialize generated class: {0} is not a type-variable of generated class", typeVariableName));
+                else if (typeNames != null) {
+                    for (String typeName: typeNames) {
+                        JPrimitiveType type = primitiveType(valueClass.owner(), typeName);
+                        if (type == null)
+                            generation.reportError(MessageFormat.format("Unable to specialize generated class: {0} type-variable can only be replaced with primitive type, but {1} found",
+                                                                        typeVariableName, typeName));
+                        else
+                            specializations.add(new SpecializationConfiguration(typeVariable, type, Source.capitalize(typeName) + baseName));
+                    }
+                }
+            }
+        }
+        return generation.createGenerationResult(specializations);
+    }
+
+    @Nullable
+    private static JPrimitiveType primitiveType(JCodeModel codeModel, String typeName) {
+        for (JPrimitiveType type: new JPrimitiveType[] {codeModel.BOOLEAN, codeModel.BYTE, codeModel.CHAR, codeModel.SHORT,
+                                                        codeModel.INT, codeModel.LONG, codeModel.FLOAT, codeModel.DOUBLE}) {
+            if (type.name().equals(typeName))
+                return type;
+        }
+        return null;
+    }
+
     public AbstractJClass wrapValueClass(AbstractJClass valueClass) {
         AbstractJClass wrapperClass = customization.wrapperClass();
         return wrapperClass != null ? wrapperClass : valueClass;
@@ -322,9 +644,63 @@ public class ValueClassConfiguration {
         return wrapperClass != null;
     }
 
+    public boolean caseClassesExtendValueClass() {
+        return "java.lang.Object".equals(valueClassExtends().fullName());
+    }
+
+    public boolean isOptionalShaped() {
+        if (!caseClassesExtendValueClass() || visitorDefinition().methodDefinitions().size() != 2)
+            return false;
+        else {
+            int nullaryCount = 0;
+            int unaryCount = 0;
+            for (JMethod interfaceMethod: visitorDefinition().methodDefinitions()) {
+                if (interfaceMethod.hasVarArgs() || interfaceMethod.typeParams().length != 0)
+                    return false;
+                else if (interfaceMethod.params().isEmpty())
+                    nullaryCount++;
+                else if (interfaceMethod.params().size() == 1)
+                    unaryCount++;
+            }
+            return nullaryCount == 1 && unaryCount == 1;
+        }
+    }
+
+    public boolean isEnumLike() {
+        if (!caseClassesExtendValueClass())
+            return false;
+        else {
+            for (JMethod interfaceMethod: visitorDefinition().methodDefinitions()) {
+                if (!interfaceMethod.params().isEmpty() || interfaceMethod.hasVarArgs() || interfaceMethod.typeParams().length != 0)
+                    return false;
+            }
+            return true;
+        }
+    }
+
     public FloatCustomization floatCustomization() {
         return customization.floatCustomization();
     }
 
+    public Interning interning() {
+        return customization.interning();
+    }
+
+    public int internTableSize() {
+        return customization.internTableSize();
+    }
+
+    public boolean packFields() {
+        return customization.packFields();
+    }
+
+    public boolean copyArrays() {
+        return customization.copyArrays();
+    }
+
+    public boolean fingerprints() {
+        return customization.fingerprints();
+    }
+
 
 }
@@ -178,6 +178,10 @@ public class VisitorDefinition {
         return specialTypeVariables.selfTypeParameter();
     }
 
+    public JDefinedClass visitorInterface() {
+        return jVisitor;
+    }
+
     String visitorName() {
         String result = jVisitor.name();
         if (result == null)
@@ -32,9 +32,12 @@ package com.github.sviperll.adt4j.model.util;
 import com.github.sviperll.adt4j.MemberAccess;
 import com.github.sviperll.adt4j.model.config.VariableDeclaration;
 import com.github.sviperll.adt4j.model.config.VisitorDefinition;
+import com.helger.jcodemodel.AbstractJAnnotationValue;
 import com.helger.jcodemodel.AbstractJClass;
 import com.helger.jcodemodel.AbstractJType;
 import com.helger.jcodemodel.IJAnnotatable;
+import com.helger.jcodemodel.JAnnotationArrayMember;
+import com.helger.jcodemodel.JAnnotationStringValue;
 import com.helger.jcodemodel.JAnnotationUse;
 import com.helger.jcodemodel.JDefinedClass;
 import com.helger.jcodemodel.JMod;
@@ -48,6 +51,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 /**
  *
@@ -194,6 +198,36 @@ public class Source {
         return typeParams.length == 0 ? type : type.narrow(typeParams);
     }
 
+    public static JAnnotationUse copyAnnotation(JAnnotationUse annotation, IJAnnotatable element) {
+        JAnnotationUse result = element.annotate(annotation.getAnnotationClass());
+        copyAnnotationMembers(annotation, result);
+        return result;
+    }
+
+    private static void copyAnnotationMembers(JAnnotationUse annotation, JAnnotationUse result) {
+        if (annotation.hasAnnotationMembers()) {
+            for (Map.Entry<String, AbstractJAnnotationValue> member: annotation.getAnnotationMembers().entrySet()) {
+                AbstractJAnnotationValue value = member.getValue();
+                if (value instanceof JAnnotationStringValue) {
+                    result.param(member.getKey(), ((JAnnotationStringValue)value).value());
+                } else if (value instanceof JAnnotationUse) {
+                    JAnnotationUse nested = (JAnnotationUse)value;
+                    copyAnnotationMembers(nested, result.annotationParam(member.getKey(), nested.getAnnotationClass()));
+                } else if (value instanceof JAnnotationArrayMember) {
+                    JAnnotationArrayMember array = result.paramArray(member.getKey());
+                    for (AbstractJAnnotationValue element: ((JAnnotationArrayMember)value).getAllAnnotations()) {
+                        if (element instanceof JAnnotationStringValue) {
+                            array.params(((JAnnotationStringValue)element).value());
+                        } else if (element instanceof JAnnotationUse) {
+                            JAnnotationUse nested = (JAnnotationUse)element;
+                            copyAnnotationMembers(nested, array.annotate(nested.getAnnotationClass()));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
     private Source() {
     }
 }
@@ -29,21 +29,43 @@
  */
 package com.github.sviperll.adt4j.model.util;
 
+import com.github.sviperll.adt4j.ArrayCopies;
+import com.github.sviperll.adt4j.Fingerprint;
+import com.github.sviperll.adt4j.Fingerprintable;
+import com.github.sviperll.adt4j.HashSink;
+import com.github.sviperll.adt4j.HashSinks;
+import com.github.sviperll.adt4j.InternTable;
+import com.github.sviperll.adt4j.Thunk;
 import com.helger.jcodemodel.AbstractJClass;
 import com.helger.jcodemodel.AbstractJType;
 import com.helger.jcodemodel.JCodeModel;
 import com.helger.jcodemodel.JPrimitiveType;
+import com.helger.jcodemodel.JTypeVar;
+import com.helger.jcodemodel.JTypeWildcard;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import javax.lang.model.SourceVersion;
 
+/**
+ * Types used by generated code and features of Java platform available to generated code.
+ * <p>
+ * Source version of compilation is used to decide what JDK methods can be called from generated code.
+ * Compiler doesn't allow target release to be lower than source version,
+ * so generated code is assumed to run on Java release not older than source version.
+ * Code generated for older source versions is still correct for newer releases,
+ * but it uses hand-written loops and expressions instead of JDK methods.
+ */
 public class Types {
-    public static Types createInstance(JCodeModel codeModel) {
-        return new Types(codeModel);
+    public static Types createInstance(JCodeModel codeModel, SourceVersion sourceVersion) {
+        return new Types(codeModel, sourceVersion);
     }
 
     private final JCodeModel codeModel;
+    private final SourceVersion sourceVersion;
     public final JPrimitiveType _void;
     public final JPrimitiveType _long;
     public final JPrimitiveType _boolean;
@@ -55,23 +77,39 @@ public class Types {
     public final AbstractJClass _Integer;
     public final AbstractJClass _Double;
     public final AbstractJClass _Float;
+    public final AbstractJClass _Character;
+    public final AbstractJClass _Byte;
+    public final AbstractJClass _Short;
     public final AbstractJClass _RuntimeException;
     public final AbstractJClass _Long;
     public final AbstractJClass _NullPointerException;
     public final AbstractJClass _Serializable;
     public final AbstractJClass _Comparable;
+    public final AbstractJClass _Enum;
     public final AbstractJClass _String;
+    public final AbstractJClass _List;
     public final AbstractJClass _StringBuilder;
     public final AbstractJClass _IllegalStateException;
+    public final AbstractJClass _Thread;
     public final AbstractJClass _Math;
+    public final AbstractJClass _System;
     public final AbstractJClass _ObjectInputStream;
     public final AbstractJClass _IOException;
     public final AbstractJClass _ClassNotFoundException;
     public final AbstractJClass _UnsupportedOperationException;
     public final AbstractJClass _Arrays;
+    public final AbstractJClass _InternTable;
+    public final AbstractJClass _AtomicIntegerFieldUpdater;
+    public final AbstractJClass _Thunk;
+    public final AbstractJClass _ArrayCopies;
+    public final AbstractJClass _HashSink;
+    public final AbstractJClass _HashSinks;
+    public final AbstractJClass _Fingerprint;
+    public final AbstractJClass _Fingerprintable;
 
-    private Types(JCodeModel codeModel) {
+    private Types(JCodeModel codeModel, SourceVersion sourceVersion) {
         this.codeModel = codeModel;
+        this.sourceVersion = sourceVersion;
         _void = codeModel.VOID;
         _long = codeModel.LONG;
         _boolean = codeModel.BOOLEAN;
@@ -85,19 +123,34 @@ public class Types {
         _Long = codeModel.ref(Long.class);
         _Double = codeModel.ref(Double.class);
         _Float = codeModel.ref(Float.class);
+        _Character = codeModel.ref(Character.class);
+        _Byte = codeModel.ref(Byte.class);
+        _Short = codeModel.ref(Short.class);
         _RuntimeException = codeModel.ref(RuntimeException.class);
         _NullPointerException = codeModel.ref(NullPointerException.class);
         _Serializable = codeModel.ref(Serializable.class);
         _Comparable = codeModel.ref(Comparable.class);
+        _Enum = codeModel.ref(Enum.class);
         _String = codeModel.ref(String.class);
+        _List = codeModel.ref(List.class);
         _StringBuilder = codeModel.ref(StringBuilder.class);
         _IllegalStateException = codeModel.ref(IllegalStateException.class);
+        _Thread = codeModel.ref(Thread.class);
         _Math = codeModel.ref(Math.class);
+        _System = codeModel.ref(System.class);
         _ObjectInputStream = codeModel.ref(ObjectInputStream.class);
         _IOException = codeModel.ref(IOException.class);
         _ClassNotFoundException = codeModel.ref(ClassNotFoundException.class);
         _UnsupportedOperationException = codeModel.ref(UnsupportedOperationException.class);
         _Arrays = codeModel.ref(Arrays.class);
+        _InternTable = codeModel.ref(InternTable.class);
+        _AtomicIntegerFieldUpdater = codeModel.ref(AtomicIntegerFieldUpdater.class);
+        _Thunk = codeModel.ref(Thunk.class);
+        _ArrayCopies = codeModel.ref(ArrayCopies.class);
+        _HashSink = codeModel.ref(HashSink.class);
+        _HashSinks = codeModel.ref(HashSinks.class);
+        _Fingerprint = codeModel.ref(Fingerprint.class);
+        _Fingerprintable = codeModel.ref(Fingerprintable.class);
     }
 
     public boolean isSerializable(AbstractJType type) {
@@ -119,6 +172,84 @@ public class Types {
             throw new IllegalStateException("Unexpected jcodemodel type: " + type);
     }
 
+    /**
+     * Tells whether values of given type can ever be hashed into fingerprint.
+     * <p>
+     * Type variables and supertypes of supported types, like {@code Object} or {@code Number},
+     * are accepted, since actual values are checked by {@link HashSinks#putObject} at runtime.
+     *
+     * @param type type of field
+     * @return false when no value of given type can be hashed
+     */
+    public boolean isFingerprintable(AbstractJType type) {
+        if (type.isPrimitive() || type.isArray())
+            return type.isPrimitive() || type.isArray() && isFingerprintable(type.elementType());
+        else if (type instanceof JTypeVar)
+            return true;
+        else if (type instanceof JTypeWildcard) {
+            JTypeWildcard wildcard = (JTypeWildcard)type;
+            return wildcard.boundMode() == JTypeWildcard.EBoundMode.SUPER || isFingerprintable(wildcard.bound());
+        } else if (type instanceof AbstractJClass) {
+            AbstractJClass klass = (AbstractJClass)type;
+            if (klass.erasure().isError())
+                return true;
+            AbstractJClass erasure = klass.erasure();
+            if (_List.isAssignableFrom(erasure)) {
+                AbstractJClass listType = klass.getBaseClass(_List);
+                List<? extends AbstractJClass> typeArguments = listType == null ? null : listType.getTypeParameters();
+                return typeArguments == null || typeArguments.size() != 1 || isFingerprintable(typeArguments.get(0));
+            }
+            for (AbstractJClass supportedClass: new AbstractJClass[] {_Fingerprintable, _String, _Boolean, _Integer, _Long, _Character, _Byte, _Short, _Float, _Double, _Enum}) {
+                if (supportedClass.isAssignableFrom(erasure) || erasure.isAssignableFrom(supportedClass))
+                    return true;
+            }
+            return erasure.isAssignableFrom(_List);
+        } else
+            throw new IllegalStateException("Unexpected jcodemodel type: " + type);
+    }
+
+    /**
+     * Tells whether {@code Long.hashCode}, {@code Double.hashCode} and alike can be called.
+     *
+     * @return true when source version is 8 or later
+     */
+    public boolean hasPrimitiveHashCodeMethods() {
+        return isAtLeastRelease(8);
+    }
+
+    /**
+     * Tells whether {@code Arrays.compare} for primitive arrays can be called.
+     *
+     * @return true when source version is 9 or later
+     */
+    public boolean hasArrayCompareMethods() {
+        return isAtLeastRelease(9);
+    }
+
+    private boolean isAtLeastRelease(int release) {
+        // Constants for newer releases are missing when processor runs on older JDK,
+        // but ordinal of RELEASE_N constant is always N
+        return sourceVersion.ordinal() >= release;
+    }
+
+    public boolean isCheapToCompare(AbstractJType type) {
+        // Boxed primitives, strings and enums are compared without traversal of deep structures
+        if (type.isPrimitive() || type.isArray())
+            return type.isPrimitive();
+        else if (type instanceof AbstractJClass) {
+            AbstractJClass klass = (AbstractJClass)type;
+            if (klass.erasure().isError())
+                return false;
+            String name = klass.erasure().fullName();
+            for (AbstractJClass cheapClass: new AbstractJClass[] {_Boolean, _Integer, _Long, _Double, _Float, _String}) {
+                if (cheapClass.fullName().equals(name))
+                    return true;
+            }
+            return _Enum.narrow(createWildcard()).isAssignableFrom(klass);
+        } else
+            throw new IllegalStateException("Unexpected jcodemodel type: " + type);
+    }
+
     public AbstractJClass createWildcard() {
         return codeModel.wildcard();
     }